@@ -0,0 +1,167 @@
+package com.medbot.client;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.medbot.dto.HealthRecord;
+import com.medbot.dto.HealthRecordPage;
+import com.medbot.dto.RecordTimestamp;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+// Non-blocking mldata client. The JDK HttpClient keeps HTTP/1.1 connections alive and reuses them,
+// and concurrent fetches for the same patient share one in-flight request (single-flight).
+@Component
+public class MldataClient {
+    private final HttpClient httpClient;
+    private final ObjectMapper objectMapper;
+    private final String baseUrl;
+    private final Duration readTimeout;
+    private final Duration pageTimeout;
+
+    private final ConcurrentHashMap<String, CompletableFuture<HealthRecord>> inFlight = new ConcurrentHashMap<>();
+    private final Counter deduplicated;
+    private final Timer fetchTimer;
+
+    public MldataClient(ObjectMapper objectMapper, MeterRegistry meterRegistry,
+                        @Value("${mldata.url:http://localhost:8089}") String baseUrl,
+                        @Value("${mldata.client.connect-timeout-ms:2000}") long connectTimeoutMs,
+                        @Value("${mldata.client.read-timeout-ms:5000}") long readTimeoutMs,
+                        @Value("${mldata.client.page-timeout-ms:30000}") long pageTimeoutMs) {
+        this.objectMapper = objectMapper;
+        this.baseUrl = baseUrl;
+        this.readTimeout = Duration.ofMillis(readTimeoutMs);
+        this.pageTimeout = Duration.ofMillis(pageTimeoutMs);
+        this.httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)  // mldata is plain HTTP/1.1; skip the h2c upgrade attempt
+                .connectTimeout(Duration.ofMillis(connectTimeoutMs))
+                .build();
+
+        Gauge.builder("medbot.mldata.inflight", inFlight, ConcurrentHashMap::size)
+                .description("Distinct mldata fetches currently in flight")
+                .register(meterRegistry);
+        this.deduplicated = Counter.builder("medbot.mldata.deduplicated")
+                .description("Fetches that joined an in-flight request for the same patient")
+                .register(meterRegistry);
+        this.fetchTimer = Timer.builder("medbot.mldata.fetch")
+                .description("Latency of latest-record fetches from mldata")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+    }
+
+    // Completes with null when mldata has no record for the patient
+    public CompletableFuture<HealthRecord> fetchLatestRecord(String patientId) {
+        CompletableFuture<HealthRecord> existing = inFlight.get(patientId);
+        if (existing != null) {
+            deduplicated.increment();
+            return existing;
+        }
+
+        CompletableFuture<HealthRecord> created = new CompletableFuture<>();
+        existing = inFlight.putIfAbsent(patientId, created);
+        if (existing != null) {
+            deduplicated.increment();
+            return existing;
+        }
+
+        long start = System.nanoTime();
+        sendLatest(patientId).whenComplete((record, error) -> {
+            inFlight.remove(patientId, created);
+            fetchTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            if (error != null) {
+                created.completeExceptionally(error);
+            } else {
+                created.complete(record);
+            }
+        });
+        return created;
+    }
+
+    // One page of the full health_records scan; pageToken null = first page
+    public CompletableFuture<HealthRecordPage> fetchRecordPage(String pageToken, int pageSize) {
+        return fetchPage("/health/records?pageSize=" + pageSize, pageToken);
+    }
+
+    // One page of a patient's history, oldest first; pageToken null = first page
+    public CompletableFuture<HealthRecordPage> fetchHistoryPage(String patientId, String pageToken, int pageSize) {
+        return fetchPage("/health/records/history?userId=" + URLEncoder.encode(patientId, StandardCharsets.UTF_8)
+                + "&pageSize=" + pageSize, pageToken);
+    }
+
+    // Records written after the watermark, oldest first; pageToken null = first page
+    public CompletableFuture<HealthRecordPage> fetchChangesPage(RecordTimestamp since, String pageToken, int pageSize) {
+        return fetchPage("/health/records/changes?since=" + URLEncoder.encode(since.toString(), StandardCharsets.UTF_8)
+                + "&pageSize=" + pageSize, pageToken);
+    }
+
+    private CompletableFuture<HealthRecordPage> fetchPage(String pathAndQuery, String pageToken) {
+        String url = baseUrl + pathAndQuery;
+        if (pageToken != null) {
+            url += "&pageToken=" + URLEncoder.encode(pageToken, StandardCharsets.UTF_8);
+        }
+        HttpRequest request = HttpRequest.newBuilder(URI.create(url))
+                .timeout(pageTimeout)
+                .header("Accept", "application/json")
+                .GET()
+                .build();
+
+        return httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofByteArray())
+                .thenApply(response -> {
+                    if (response.statusCode() / 100 != 2) {
+                        throw new IllegalStateException("mldata returned HTTP " + response.statusCode());
+                    }
+                    try {
+                        return objectMapper.readValue(response.body(), HealthRecordPage.class);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException("Unreadable record page from mldata", e);
+                    }
+                });
+    }
+
+    private CompletableFuture<HealthRecord> sendLatest(String patientId) {
+        URI uri = URI.create(baseUrl + "/health/record/latest?userId="
+                + URLEncoder.encode(patientId, StandardCharsets.UTF_8));
+        HttpRequest request = HttpRequest.newBuilder(uri)
+                .timeout(readTimeout)
+                .header("Accept", "application/json")
+                .GET()
+                .build();
+
+        return httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofByteArray())
+                .thenApply(response -> {
+                    if (response.statusCode() == 404) {
+                        return null;
+                    }
+                    if (response.statusCode() / 100 != 2) {
+                        throw new IllegalStateException("mldata returned HTTP " + response.statusCode());
+                    }
+                    return readRecord(response.body());
+                });
+    }
+
+    private HealthRecord readRecord(byte[] body) {
+        if (body.length == 0) {
+            return null;
+        }
+        try {
+            return objectMapper.readValue(body, HealthRecord.class);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unreadable health record from mldata", e);
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,41 @@
+package com.medbot.controller;
+
+import com.medbot.dto.CohortSummary;
+import com.medbot.service.CohortScoringJob;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/cohort")
+public class CohortController {
+    private final CohortScoringJob cohortScoringJob;
+
+    public CohortController(CohortScoringJob cohortScoringJob) {
+        this.cohortScoringJob = cohortScoringJob;
+    }
+
+    // Scores every patient's latest record in one run; returns the distribution summary when done
+    @PostMapping("/runs")
+    public ResponseEntity<CohortSummary> run() {
+        if (cohortScoringJob.isRunning()) {
+            return ResponseEntity.status(409).body(null);
+        }
+        try {
+            return ResponseEntity.ok(cohortScoringJob.run());
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(409).body(null);  // Lost the race with another run
+        } catch (Exception e) {
+            e.printStackTrace();
+            return ResponseEntity.status(500).body(null);
+        }
+    }
+
+    @GetMapping("/runs/latest")
+    public ResponseEntity<CohortSummary> latest() {
+        CohortSummary summary = cohortScoringJob.lastSummary();
+        if (summary == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(summary);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,32 @@
+package com.medbot.controller;
+
+import com.medbot.dto.DriftReport;
+import com.medbot.dto.FeatureStoreStats;
+import com.medbot.service.DriftMonitor;
+import com.medbot.service.FeatureStore;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/metrics")
+public class MetricsController {
+    private final DriftMonitor driftMonitor;
+    private final FeatureStore featureStore;
+
+    public MetricsController(DriftMonitor driftMonitor, FeatureStore featureStore) {
+        this.driftMonitor = driftMonitor;
+        this.featureStore = featureStore;
+    }
+
+    // Live input/output distributions against the training scaler statistics
+    @GetMapping("/drift")
+    public ResponseEntity<DriftReport> drift() {
+        return ResponseEntity.ok(driftMonitor.report());
+    }
+
+    // Patients held, heap estimate and projected footprint per million patients
+    @GetMapping("/feature-store")
+    public ResponseEntity<FeatureStoreStats> featureStore() {
+        return ResponseEntity.ok(featureStore.stats());
+    }
+}
\ No newline at end of file
@@ -0,0 +1,73 @@
+package com.medbot.controller;
+
+import com.medbot.dto.ModelStatus;
+import com.medbot.dto.ShadowStats;
+import com.medbot.service.LoadedModel;
+import com.medbot.service.ModelRegistry;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/models")
+public class ModelController {
+    private final ModelRegistry modelRegistry;
+
+    public ModelController(ModelRegistry modelRegistry) {
+        this.modelRegistry = modelRegistry;
+    }
+
+    @GetMapping
+    public ResponseEntity<ModelStatus> status() {
+        try {
+            LoadedModel active = modelRegistry.active();
+            return ResponseEntity.ok(new ModelStatus(active.getVersion(), active.getLoadedAt().toString(),
+                    modelRegistry.shadowVersion(), modelRegistry.availableVersions()));
+        } catch (Exception e) {
+            e.printStackTrace();
+            return ResponseEntity.status(500).body(null);
+        }
+    }
+
+    // Loads and warms the version, then swaps it in without interrupting in-flight predictions
+    @PostMapping("/{version}/activate")
+    public ResponseEntity<String> activate(@PathVariable String version) {
+        try {
+            LoadedModel model = modelRegistry.activate(version);
+            return ResponseEntity.ok("Active model: " + model.getVersion());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (Exception e) {
+            e.printStackTrace();
+            return ResponseEntity.status(500).body("Activation failed: " + e.getMessage());
+        }
+    }
+
+    // Scores live traffic with the version as well, without changing responses
+    @PostMapping("/{version}/shadow")
+    public ResponseEntity<String> startShadow(@PathVariable String version) {
+        try {
+            modelRegistry.startShadow(version);
+            return ResponseEntity.ok("Shadowing model: " + version);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (Exception e) {
+            e.printStackTrace();
+            return ResponseEntity.status(500).body("Shadow start failed: " + e.getMessage());
+        }
+    }
+
+    @GetMapping("/shadow")
+    public ResponseEntity<ShadowStats> shadowStats() {
+        ShadowStats stats = modelRegistry.shadowStats();
+        if (stats == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(stats);
+    }
+
+    @DeleteMapping("/shadow")
+    public ResponseEntity<Void> stopShadow() {
+        modelRegistry.stopShadow();
+        return ResponseEntity.noContent().build();
+    }
+}
\ No newline at end of file
@@ -1,48 +1,265 @@
 package com.medbot.controller;
 
+import com.medbot.client.MldataClient;
+import com.medbot.dto.BatchPredictionRequest;
+import com.medbot.dto.BatchPredictionResponse;
 import com.medbot.dto.HealthRecord;
+import com.medbot.dto.HealthRecordPage;
+import com.medbot.dto.PatientInput;
 import com.medbot.dto.PredictionResponse;
+import com.medbot.dto.RiskCurve;
+import com.medbot.dto.WhatIfRequest;
+import com.medbot.service.FeatureVectorizer;
+import com.medbot.service.FeatureStore;
+import com.medbot.service.PredictionCache;
 import com.medbot.service.PredictionService;
+import com.medbot.service.RiskHistoryService;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Valid;
+import jakarta.validation.Validator;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
-import org.springframework.web.client.RestTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 @RestController
 @RequestMapping("/api")
 public class PredictionController {
     private final PredictionService predictionService;
-    private final RestTemplate restTemplate;
+    private final PredictionCache predictionCache;
+    private final MldataClient mldataClient;
+    private final Validator validator;
+    private final RiskHistoryService riskHistoryService;
+    private final FeatureStore featureStore;
+
+    @Value("${medbot.batch.max-size:1000}")  // Upper bound on patients per batch request
+    private int maxBatchSize;
 
-    @Value("${mldata.url:http://localhost:8089}")  // Configurable mldata base URL
-    private String mldataUrl;
+    @Value("${medbot.what-if.max-points:1000}")  // Upper bound on points per risk curve
+    private int maxCurvePoints;
 
-    public PredictionController(PredictionService predictionService) {
+    public PredictionController(PredictionService predictionService, PredictionCache predictionCache,
+                                MldataClient mldataClient, Validator validator,
+                                RiskHistoryService riskHistoryService, FeatureStore featureStore) {
         this.predictionService = predictionService;
-        this.restTemplate = new RestTemplate();
+        this.predictionCache = predictionCache;
+        this.mldataClient = mldataClient;
+        this.validator = validator;
+        this.riskHistoryService = riskHistoryService;
+        this.featureStore = featureStore;
     }
 
+    // Known patients are scored from the feature store with no network call; otherwise async: the
+    // servlet thread is released while the mldata fetch is in flight
     @GetMapping("/predict")
-    public ResponseEntity<PredictionResponse> predict(@RequestParam String patientId) {
+    public CompletableFuture<ResponseEntity<PredictionResponse>> predict(@RequestParam String patientId) {
+        float[] features = new float[FeatureVectorizer.NUM_FEATURES];
+        HealthRecord stored = featureStore.lookup(patientId, features, 0);
+        if (stored != null) {
+            predictionCache.bindPatient(patientId, stored);
+            return CompletableFuture.completedFuture(ResponseEntity.ok(predictionService.predict(stored, features, 0)));
+        }
+        return mldataClient.fetchLatestRecord(patientId)
+                .thenApply(record -> predictRecord(patientId, record))
+                .exceptionally(e -> {
+                    e.printStackTrace();
+                    return ResponseEntity.status(500).body(null);
+                });
+    }
+
+    // NEW: Score many patients with one Booster call; missing records are reported per patient
+    @PostMapping("/predict/batch")
+    public CompletableFuture<ResponseEntity<BatchPredictionResponse>> predictBatch(@RequestBody BatchPredictionRequest request) {
+        if (request == null || request.getPatientIds() == null || request.getPatientIds().isEmpty()) {
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().build());
+        }
+        Set<String> patientIds = new LinkedHashSet<>(request.getPatientIds());  // Drop duplicates, keep order
+        if (patientIds.size() > maxBatchSize) {
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().build());
+        }
+
+        // Fetch all records concurrently, then score whatever came back in one call
+        Map<String, CompletableFuture<HealthRecord>> fetches = new LinkedHashMap<>();
+        for (String patientId : patientIds) {
+            fetches.put(patientId, mldataClient.fetchLatestRecord(patientId));
+        }
+        return CompletableFuture.allOf(fetches.values().toArray(new CompletableFuture[0]))
+                .handle((ignored, error) -> scoreBatch(fetches));
+    }
+
+    // NEW: Score vitals supplied directly (bedside devices, staff app) without going through mldata;
+    // out-of-range values are rejected with 400 before reaching the model
+    @PostMapping("/predict")
+    public ResponseEntity<PredictionResponse> predictInput(@Valid @RequestBody PatientInput input) {
         try {
-            // Fetch from mldata
-            String fetchUrl = mldataUrl + "/health/record/latest?userId=" + patientId;
-            ResponseEntity<HealthRecord> response = restTemplate.getForEntity(fetchUrl, HealthRecord.class);
-            if (!response.getStatusCode().is2xxSuccessful() || response.getBody() == null) {
-                return ResponseEntity.notFound().build();
+            return ResponseEntity.ok(predictionService.predict(input.toHealthRecord()));
+        } catch (Exception e) {
+            e.printStackTrace();
+            return ResponseEntity.status(500).body(null);
+        }
+    }
+
+    // NEW: Batch variant of POST /predict; results are keyed by array index, and invalid items are
+    // reported under failures while the valid ones are still scored in one engine call
+    @PostMapping("/predict/inputs")
+    public ResponseEntity<BatchPredictionResponse> predictInputs(@RequestBody List<PatientInput> inputs) {
+        if (inputs == null || inputs.isEmpty() || inputs.size() > maxBatchSize) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        BatchPredictionResponse result = new BatchPredictionResponse();
+        List<String> validIds = new ArrayList<>();
+        List<HealthRecord> records = new ArrayList<>();
+        for (int i = 0; i < inputs.size(); i++) {
+            PatientInput input = inputs.get(i);
+            String id = Integer.toString(i);
+            if (input == null) {
+                result.getFailures().put(id, "No input provided");
+                continue;
             }
+            Set<ConstraintViolation<PatientInput>> violations = validator.validate(input);
+            if (!violations.isEmpty()) {
+                Set<String> messages = new TreeSet<>();  // Stable order for clients and logs
+                for (ConstraintViolation<PatientInput> violation : violations) {
+                    messages.add(violation.getPropertyPath() + " " + violation.getMessage());
+                }
+                result.getFailures().put(id, String.join("; ", messages));
+                continue;
+            }
+            validIds.add(id);
+            records.add(input.toHealthRecord());
+        }
+
+        if (!records.isEmpty()) {
+            try {
+                List<PredictionResponse> predictions = predictionService.predictBatch(records);
+                for (int i = 0; i < validIds.size(); i++) {
+                    result.getPredictions().put(validIds.get(i), predictions.get(i));
+                }
+            } catch (Exception e) {
+                e.printStackTrace();
+                return ResponseEntity.status(500).body(null);
+            }
+        }
+        return ResponseEntity.ok(result);
+    }
 
-            HealthRecord record = response.getBody();
-            PredictionResponse pred = predictionService.predict(record);
-            return ResponseEntity.ok(pred);
+    // NEW: Risk curve for one feature swept over [from, to] with the rest of the record fixed,
+    // scored as a single multi-row engine call
+    @PostMapping("/predict/what-if")
+    public ResponseEntity<RiskCurve> whatIf(@RequestBody WhatIfRequest request) {
+        if (request == null || request.getRecord() == null || request.getFrom() == null
+                || request.getTo() == null || request.getStep() == null) {
+            return ResponseEntity.badRequest().build();
+        }
+        int featureIndex = FeatureVectorizer.indexOf(request.getFeature());
+        double from = request.getFrom();
+        double to = request.getTo();
+        double step = request.getStep();
+        if (featureIndex < 0 || !(step > 0) || !(to >= from)) {  // Negated so NaN is rejected too
+            return ResponseEntity.badRequest().build();
+        }
+        double span = (to - from) / step;
+        if (span + 1 > maxCurvePoints) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        int points = (int) Math.floor(span + 1e-9) + 1;  // Tolerate float error so "to" itself is included
+        double[] values = new double[points];
+        for (int i = 0; i < points; i++) {
+            values[i] = Math.min(to, from + i * step);  // Multiply, not accumulate, to avoid drift
+        }
+        try {
+            return ResponseEntity.ok(predictionService.riskCurve(request.getRecord(), featureIndex, values));
         } catch (Exception e) {
             e.printStackTrace();
             return ResponseEntity.status(500).body(null);
         }
     }
 
+    // NEW: Risk over time for every stored record of the patient, streamed as it is scored page by page
+    @GetMapping("/predict/history")
+    public ResponseEntity<StreamingResponseBody> predictHistory(@RequestParam String patientId) {
+        HealthRecordPage firstPage;
+        try {
+            firstPage = riskHistoryService.firstPage(patientId).join();
+        } catch (CompletionException e) {
+            e.printStackTrace();
+            return ResponseEntity.status(500).body(null);
+        }
+        if (firstPage.getRecords() == null || firstPage.getRecords().isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        StreamingResponseBody body = out -> riskHistoryService.writeHistory(patientId, firstPage, out);
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
+    }
+
+    // NEW: Drop a patient's cached prediction (called by mldata when it stores a new record)
+    @DeleteMapping("/cache/patients/{patientId}")
+    public ResponseEntity<Void> invalidatePatient(@PathVariable String patientId) {
+        predictionCache.invalidatePatient(patientId);
+        featureStore.invalidate(patientId);
+        return ResponseEntity.noContent().build();
+    }
+
     @GetMapping("/health")
     public ResponseEntity<String> health() {
         return ResponseEntity.ok("Healthy");
     }
+
+    private ResponseEntity<PredictionResponse> predictRecord(String patientId, HealthRecord record) {
+        if (record == null) {
+            return ResponseEntity.notFound().build();
+        }
+        predictionCache.bindPatient(patientId, record);
+        featureStore.upsert(record);  // Read-through: the next prediction needs no fetch
+        PredictionResponse pred = predictionService.predict(record);
+        return ResponseEntity.ok(pred);
+    }
+
+    private ResponseEntity<BatchPredictionResponse> scoreBatch(Map<String, CompletableFuture<HealthRecord>> fetches) {
+        BatchPredictionResponse result = new BatchPredictionResponse();
+        List<String> foundIds = new ArrayList<>();
+        List<HealthRecord> records = new ArrayList<>();
+        for (Map.Entry<String, CompletableFuture<HealthRecord>> fetch : fetches.entrySet()) {
+            String patientId = fetch.getKey();
+            try {
+                HealthRecord record = fetch.getValue().join();
+                if (record == null) {
+                    result.getFailures().put(patientId, "No health record found");
+                } else {
+                    predictionCache.bindPatient(patientId, record);
+                    foundIds.add(patientId);
+                    records.add(record);
+                }
+            } catch (CompletionException e) {
+                Throwable cause = e.getCause() != null ? e.getCause() : e;
+                result.getFailures().put(patientId, "Failed to fetch health record: " + cause.getMessage());
+            }
+        }
+
+        if (!records.isEmpty()) {
+            try {
+                List<PredictionResponse> predictions = predictionService.predictBatch(records);
+                for (int i = 0; i < foundIds.size(); i++) {
+                    result.getPredictions().put(foundIds.get(i), predictions.get(i));
+                }
+            } catch (Exception e) {
+                e.printStackTrace();
+                return ResponseEntity.status(500).body(null);
+            }
+        }
+        return ResponseEntity.ok(result);
+    }
 }
\ No newline at end of file
@@ -0,0 +1,39 @@
+package com.medbot.controller;
+
+import com.medbot.dto.RiskScore;
+import com.medbot.service.RiskScoreStore;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/risk")
+public class RiskController {
+    private final RiskScoreStore riskScoreStore;
+
+    public RiskController(RiskScoreStore riskScoreStore) {
+        this.riskScoreStore = riskScoreStore;
+    }
+
+    // Precomputed score from the last refresh: a map lookup, no mldata call or inference
+    @GetMapping("/{patientId}")
+    public ResponseEntity<RiskScore> getRisk(@PathVariable String patientId) {
+        RiskScore score = riskScoreStore.get(patientId);
+        if (score == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(score);
+    }
+
+    // Incremental refresh now instead of waiting for the schedule
+    @PostMapping("/refresh")
+    public ResponseEntity<String> refresh() {
+        try {
+            int rescored = riskScoreStore.refresh();
+            return ResponseEntity.ok("Re-scored " + rescored + " patients; " + riskScoreStore.size()
+                    + " in store, watermark " + riskScoreStore.watermark());
+        } catch (Exception e) {
+            e.printStackTrace();
+            return ResponseEntity.status(500).body("Refresh failed: " + e.getMessage());
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,18 @@
+package com.medbot.dto;
+
+import java.util.List;
+
+public class BatchPredictionRequest {
+    private List<String> patientIds;
+
+    // Constructors
+    public BatchPredictionRequest() {}
+
+    public BatchPredictionRequest(List<String> patientIds) {
+        this.patientIds = patientIds;
+    }
+
+    // Getters/Setters
+    public List<String> getPatientIds() { return patientIds; }
+    public void setPatientIds(List<String> patientIds) { this.patientIds = patientIds; }
+}
\ No newline at end of file
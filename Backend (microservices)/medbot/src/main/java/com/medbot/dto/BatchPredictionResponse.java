@@ -0,0 +1,65 @@
+package com.medbot.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+public class BatchPredictionResponse {
+    @JsonProperty("predictions")
+    private Map<String, PredictionResponse> predictions = new LinkedHashMap<>();  // patientId -> prediction
+
+    @JsonProperty("failures")
+    private Map<String, String> failures = new LinkedHashMap<>();  // patientId -> reason
+
+    // Default constructor
+    public BatchPredictionResponse() {
+    }
+
+    // Parameterized constructor
+    public BatchPredictionResponse(Map<String, PredictionResponse> predictions, Map<String, String> failures) {
+        this.predictions = predictions;
+        this.failures = failures;
+    }
+
+    // Getters
+    public Map<String, PredictionResponse> getPredictions() {
+        return predictions;
+    }
+
+    public Map<String, String> getFailures() {
+        return failures;
+    }
+
+    // Setters
+    public void setPredictions(Map<String, PredictionResponse> predictions) {
+        this.predictions = predictions;
+    }
+
+    public void setFailures(Map<String, String> failures) {
+        this.failures = failures;
+    }
+
+    // equals, hashCode, toString
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        BatchPredictionResponse that = (BatchPredictionResponse) o;
+        return java.util.Objects.equals(predictions, that.predictions) &&
+                java.util.Objects.equals(failures, that.failures);
+    }
+
+    @Override
+    public int hashCode() {
+        return java.util.Objects.hash(predictions, failures);
+    }
+
+    @Override
+    public String toString() {
+        return "BatchPredictionResponse{" +
+                "predictions=" + predictions +
+                ", failures=" + failures +
+                '}';
+    }
+}
\ No newline at end of file
@@ -0,0 +1,79 @@
+package com.medbot.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+// Distribution summary of one population scoring run; the per-patient rows are in riskTable
+public class CohortSummary {
+    @JsonProperty("runId")
+    private String runId;
+
+    @JsonProperty("source")
+    private String source;  // mldata or memory
+
+    @JsonProperty("modelVersion")
+    private String modelVersion;
+
+    @JsonProperty("recordsScanned")
+    private long recordsScanned;
+
+    @JsonProperty("pagesFetched")
+    private int pagesFetched;
+
+    @JsonProperty("patients")
+    private int patients;  // Distinct users, each scored on their latest record
+
+    @JsonProperty("highRisk")
+    private int highRisk;  // probability > 0.5, same cut as /api/predict
+
+    @JsonProperty("highRiskRate")
+    private double highRiskRate;
+
+    @JsonProperty("meanProbability")
+    private double meanProbability;
+
+    @JsonProperty("histogram")
+    private int[] histogram;  // Patients per probability decile: [0, 0.1), [0.1, 0.2), ... [0.9, 1.0]
+
+    @JsonProperty("fetchMillis")
+    private long fetchMillis;
+
+    @JsonProperty("scoreMillis")
+    private long scoreMillis;
+
+    @JsonProperty("totalMillis")
+    private long totalMillis;
+
+    @JsonProperty("riskTable")
+    private String riskTable;  // Path of the CSV written for this run
+
+    public CohortSummary() {}
+
+    public String getRunId() { return runId; }
+    public void setRunId(String runId) { this.runId = runId; }
+    public String getSource() { return source; }
+    public void setSource(String source) { this.source = source; }
+    public String getModelVersion() { return modelVersion; }
+    public void setModelVersion(String modelVersion) { this.modelVersion = modelVersion; }
+    public long getRecordsScanned() { return recordsScanned; }
+    public void setRecordsScanned(long recordsScanned) { this.recordsScanned = recordsScanned; }
+    public int getPagesFetched() { return pagesFetched; }
+    public void setPagesFetched(int pagesFetched) { this.pagesFetched = pagesFetched; }
+    public int getPatients() { return patients; }
+    public void setPatients(int patients) { this.patients = patients; }
+    public int getHighRisk() { return highRisk; }
+    public void setHighRisk(int highRisk) { this.highRisk = highRisk; }
+    public double getHighRiskRate() { return highRiskRate; }
+    public void setHighRiskRate(double highRiskRate) { this.highRiskRate = highRiskRate; }
+    public double getMeanProbability() { return meanProbability; }
+    public void setMeanProbability(double meanProbability) { this.meanProbability = meanProbability; }
+    public int[] getHistogram() { return histogram; }
+    public void setHistogram(int[] histogram) { this.histogram = histogram; }
+    public long getFetchMillis() { return fetchMillis; }
+    public void setFetchMillis(long fetchMillis) { this.fetchMillis = fetchMillis; }
+    public long getScoreMillis() { return scoreMillis; }
+    public void setScoreMillis(long scoreMillis) { this.scoreMillis = scoreMillis; }
+    public long getTotalMillis() { return totalMillis; }
+    public void setTotalMillis(long totalMillis) { this.totalMillis = totalMillis; }
+    public String getRiskTable() { return riskTable; }
+    public void setRiskTable(String riskTable) { this.riskTable = riskTable; }
+}
\ No newline at end of file
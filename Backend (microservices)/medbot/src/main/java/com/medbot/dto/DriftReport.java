@@ -0,0 +1,37 @@
+package com.medbot.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.List;
+
+public class DriftReport {
+    @JsonProperty("since")
+    private String since;  // ISO-8601 start of the observation window (service startup)
+
+    @JsonProperty("observations")
+    private long observations;  // Predictions recorded
+
+    @JsonProperty("features")
+    private List<FeatureDrift> features;  // In model feature order
+
+    @JsonProperty("probability")
+    private FeatureDrift probability;
+
+    public DriftReport() {}
+
+    public DriftReport(String since, long observations, List<FeatureDrift> features, FeatureDrift probability) {
+        this.since = since;
+        this.observations = observations;
+        this.features = features;
+        this.probability = probability;
+    }
+
+    public String getSince() { return since; }
+    public void setSince(String since) { this.since = since; }
+    public long getObservations() { return observations; }
+    public void setObservations(long observations) { this.observations = observations; }
+    public List<FeatureDrift> getFeatures() { return features; }
+    public void setFeatures(List<FeatureDrift> features) { this.features = features; }
+    public FeatureDrift getProbability() { return probability; }
+    public void setProbability(FeatureDrift probability) { this.probability = probability; }
+}
\ No newline at end of file
@@ -0,0 +1,76 @@
+package com.medbot.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+public class FeatureContribution {
+    @JsonProperty("feature")
+    private String feature;  // Model input name, e.g. "chol"
+
+    @JsonProperty("value")
+    private Double value;  // Raw input value; null when the feature was imputed
+
+    @JsonProperty("contribution")
+    private Double contribution;  // Log-odds contribution; positive raises risk
+
+    // Default constructor
+    public FeatureContribution() {
+    }
+
+    // Parameterized constructor
+    public FeatureContribution(String feature, Double value, Double contribution) {
+        this.feature = feature;
+        this.value = value;
+        this.contribution = contribution;
+    }
+
+    // Getters
+    public String getFeature() {
+        return feature;
+    }
+
+    public Double getValue() {
+        return value;
+    }
+
+    public Double getContribution() {
+        return contribution;
+    }
+
+    // Setters
+    public void setFeature(String feature) {
+        this.feature = feature;
+    }
+
+    public void setValue(Double value) {
+        this.value = value;
+    }
+
+    public void setContribution(Double contribution) {
+        this.contribution = contribution;
+    }
+
+    // equals, hashCode, toString
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        FeatureContribution that = (FeatureContribution) o;
+        return java.util.Objects.equals(feature, that.feature) &&
+                java.util.Objects.equals(value, that.value) &&
+                java.util.Objects.equals(contribution, that.contribution);
+    }
+
+    @Override
+    public int hashCode() {
+        return java.util.Objects.hash(feature, value, contribution);
+    }
+
+    @Override
+    public String toString() {
+        return "FeatureContribution{" +
+                "feature='" + feature + '\'' +
+                ", value=" + value +
+                ", contribution=" + contribution +
+                '}';
+    }
+}
\ No newline at end of file
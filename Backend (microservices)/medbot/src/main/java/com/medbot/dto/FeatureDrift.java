@@ -0,0 +1,86 @@
+package com.medbot.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+// Streaming statistics for one model input (or the output probability) since startup
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class FeatureDrift {
+    @JsonProperty("feature")
+    private String feature;
+
+    @JsonProperty("count")
+    private long count;
+
+    @JsonProperty("missingRate")
+    private double missingRate;  // Share of requests that left the input empty (imputed with the training mean)
+
+    @JsonProperty("mean")
+    private Double mean;
+
+    @JsonProperty("std")
+    private Double std;
+
+    @JsonProperty("min")
+    private Double min;
+
+    @JsonProperty("max")
+    private Double max;
+
+    @JsonProperty("p05")
+    private Double p05;  // Quantiles from a 128-bin histogram; resolution is one bin
+
+    @JsonProperty("p50")
+    private Double p50;
+
+    @JsonProperty("p95")
+    private Double p95;
+
+    @JsonProperty("trainingMean")
+    private Double trainingMean;  // Numeric inputs only: scaler statistics the model was trained with
+
+    @JsonProperty("trainingStd")
+    private Double trainingStd;
+
+    @JsonProperty("meanShift")
+    private Double meanShift;  // (mean - trainingMean) / trainingStd
+
+    @JsonProperty("clipLowRate")
+    private Double clipLowRate;  // Share of values below the clip bound, i.e. flattened before reaching the model
+
+    @JsonProperty("clipHighRate")
+    private Double clipHighRate;
+
+    public FeatureDrift() {}
+
+    public String getFeature() { return feature; }
+    public void setFeature(String feature) { this.feature = feature; }
+    public long getCount() { return count; }
+    public void setCount(long count) { this.count = count; }
+    public double getMissingRate() { return missingRate; }
+    public void setMissingRate(double missingRate) { this.missingRate = missingRate; }
+    public Double getMean() { return mean; }
+    public void setMean(Double mean) { this.mean = mean; }
+    public Double getStd() { return std; }
+    public void setStd(Double std) { this.std = std; }
+    public Double getMin() { return min; }
+    public void setMin(Double min) { this.min = min; }
+    public Double getMax() { return max; }
+    public void setMax(Double max) { this.max = max; }
+    public Double getP05() { return p05; }
+    public void setP05(Double p05) { this.p05 = p05; }
+    public Double getP50() { return p50; }
+    public void setP50(Double p50) { this.p50 = p50; }
+    public Double getP95() { return p95; }
+    public void setP95(Double p95) { this.p95 = p95; }
+    public Double getTrainingMean() { return trainingMean; }
+    public void setTrainingMean(Double trainingMean) { this.trainingMean = trainingMean; }
+    public Double getTrainingStd() { return trainingStd; }
+    public void setTrainingStd(Double trainingStd) { this.trainingStd = trainingStd; }
+    public Double getMeanShift() { return meanShift; }
+    public void setMeanShift(Double meanShift) { this.meanShift = meanShift; }
+    public Double getClipLowRate() { return clipLowRate; }
+    public void setClipLowRate(Double clipLowRate) { this.clipLowRate = clipLowRate; }
+    public Double getClipHighRate() { return clipHighRate; }
+    public void setClipHighRate(Double clipHighRate) { this.clipHighRate = clipHighRate; }
+}
\ No newline at end of file
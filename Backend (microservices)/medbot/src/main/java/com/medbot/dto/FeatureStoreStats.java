@@ -0,0 +1,48 @@
+package com.medbot.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+public class FeatureStoreStats {
+    @JsonProperty("patients")
+    private int patients;  // Rows allocated, including invalidated ones
+
+    @JsonProperty("livePatients")
+    private int livePatients;  // Rows that can be served without a network call
+
+    @JsonProperty("bytesUsed")
+    private long bytesUsed;  // Estimated heap held by the store, including spare array capacity
+
+    @JsonProperty("bytesPerPatient")
+    private double bytesPerPatient;
+
+    @JsonProperty("projectedBytesPerMillion")
+    private long projectedBytesPerMillion;  // Steady-state layout cost for 1,000,000 patients
+
+    @JsonProperty("watermark")
+    private RecordTimestamp watermark;  // Newest record timestamp seen by the delta poll
+
+    public FeatureStoreStats() {}
+
+    public FeatureStoreStats(int patients, int livePatients, long bytesUsed, double bytesPerPatient,
+                             long projectedBytesPerMillion, RecordTimestamp watermark) {
+        this.patients = patients;
+        this.livePatients = livePatients;
+        this.bytesUsed = bytesUsed;
+        this.bytesPerPatient = bytesPerPatient;
+        this.projectedBytesPerMillion = projectedBytesPerMillion;
+        this.watermark = watermark;
+    }
+
+    public int getPatients() { return patients; }
+    public void setPatients(int patients) { this.patients = patients; }
+    public int getLivePatients() { return livePatients; }
+    public void setLivePatients(int livePatients) { this.livePatients = livePatients; }
+    public long getBytesUsed() { return bytesUsed; }
+    public void setBytesUsed(long bytesUsed) { this.bytesUsed = bytesUsed; }
+    public double getBytesPerPatient() { return bytesPerPatient; }
+    public void setBytesPerPatient(double bytesPerPatient) { this.bytesPerPatient = bytesPerPatient; }
+    public long getProjectedBytesPerMillion() { return projectedBytesPerMillion; }
+    public void setProjectedBytesPerMillion(long projectedBytesPerMillion) { this.projectedBytesPerMillion = projectedBytesPerMillion; }
+    public RecordTimestamp getWatermark() { return watermark; }
+    public void setWatermark(RecordTimestamp watermark) { this.watermark = watermark; }
+}
\ No newline at end of file
@@ -11,6 +11,8 @@ public class HealthRecord {
     private Integer thal;
     private Integer restecg;
     private Integer cp;
+    private String userId;  // Set on records read from mldata
+    private RecordTimestamp timestamp;  // Firestore server timestamp, as serialized by mldata
 
     // Constructors
     public HealthRecord() {}
@@ -36,4 +38,8 @@ public class HealthRecord {
     public void setRestecg(Integer restecg) { this.restecg = restecg; }
     public Integer getCp() { return cp; }
     public void setCp(Integer cp) { this.cp = cp; }
+    public String getUserId() { return userId; }
+    public void setUserId(String userId) { this.userId = userId; }
+    public RecordTimestamp getTimestamp() { return timestamp; }
+    public void setTimestamp(RecordTimestamp timestamp) { this.timestamp = timestamp; }
 }
\ No newline at end of file
@@ -0,0 +1,21 @@
+package com.medbot.dto;
+
+import java.util.List;
+
+// One page of mldata's GET /health/records scan; nextPageToken is null on the last page
+public class HealthRecordPage {
+    private List<HealthRecord> records;
+    private String nextPageToken;
+
+    public HealthRecordPage() {}
+
+    public HealthRecordPage(List<HealthRecord> records, String nextPageToken) {
+        this.records = records;
+        this.nextPageToken = nextPageToken;
+    }
+
+    public List<HealthRecord> getRecords() { return records; }
+    public void setRecords(List<HealthRecord> records) { this.records = records; }
+    public String getNextPageToken() { return nextPageToken; }
+    public void setNextPageToken(String nextPageToken) { this.nextPageToken = nextPageToken; }
+}
\ No newline at end of file
@@ -0,0 +1,39 @@
+package com.medbot.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.List;
+
+public class ModelStatus {
+    @JsonProperty("activeVersion")
+    private String activeVersion;
+
+    @JsonProperty("activeSince")
+    private String activeSince;  // ISO-8601 load time of the active model
+
+    @JsonProperty("shadowVersion")
+    private String shadowVersion;  // Null when no shadow is running
+
+    @JsonProperty("availableVersions")
+    private List<String> availableVersions;
+
+    // Constructors
+    public ModelStatus() {}
+
+    public ModelStatus(String activeVersion, String activeSince, String shadowVersion, List<String> availableVersions) {
+        this.activeVersion = activeVersion;
+        this.activeSince = activeSince;
+        this.shadowVersion = shadowVersion;
+        this.availableVersions = availableVersions;
+    }
+
+    // Getters/Setters
+    public String getActiveVersion() { return activeVersion; }
+    public void setActiveVersion(String activeVersion) { this.activeVersion = activeVersion; }
+    public String getActiveSince() { return activeSince; }
+    public void setActiveSince(String activeSince) { this.activeSince = activeSince; }
+    public String getShadowVersion() { return shadowVersion; }
+    public void setShadowVersion(String shadowVersion) { this.shadowVersion = shadowVersion; }
+    public List<String> getAvailableVersions() { return availableVersions; }
+    public void setAvailableVersions(List<String> availableVersions) { this.availableVersions = availableVersions; }
+}
\ No newline at end of file
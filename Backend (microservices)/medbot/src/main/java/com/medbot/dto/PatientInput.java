@@ -149,6 +149,22 @@ public class PatientInput {
         this.cp = cp;
     }
 
+    // Model inputs for PredictionService; no userId/timestamp since the vitals did not come from mldata
+    public HealthRecord toHealthRecord() {
+        HealthRecord record = new HealthRecord();
+        record.setAge(age);
+        record.setThalach(thalach);
+        record.setOldpeak(oldpeak);
+        record.setTrestbps(trestbps);
+        record.setBmi(bmi);
+        record.setChol(chol);
+        record.setCa(ca);
+        record.setThal(thal);
+        record.setRestecg(restecg);
+        record.setCp(cp);
+        return record;
+    }
+
     // equals, hashCode, toString (for debugging/JSON serialization)
     @Override
     public boolean equals(Object o) {
@@ -1,7 +1,10 @@
 package com.medbot.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
 
+import java.util.List;
+
 public class PredictionResponse {
     @JsonProperty("risk")
     private Integer risk;  // 0 or 1
@@ -12,6 +15,13 @@ public class PredictionResponse {
     @JsonProperty("explanation")
     private String explanation;
 
+    @JsonProperty("drivers")
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private List<FeatureContribution> drivers;  // Top-k model contributions; only in contributions explanation mode
+
+    @JsonProperty("modelVersion")
+    private String modelVersion;  // Registry version that produced this prediction
+
     // Default constructor
     public PredictionResponse() {
     }
@@ -36,6 +46,14 @@ public class PredictionResponse {
         return explanation;
     }
 
+    public List<FeatureContribution> getDrivers() {
+        return drivers;
+    }
+
+    public String getModelVersion() {
+        return modelVersion;
+    }
+
     // Setters
     public void setRisk(Integer risk) {
         this.risk = risk;
@@ -49,6 +67,14 @@ public class PredictionResponse {
         this.explanation = explanation;
     }
 
+    public void setDrivers(List<FeatureContribution> drivers) {
+        this.drivers = drivers;
+    }
+
+    public void setModelVersion(String modelVersion) {
+        this.modelVersion = modelVersion;
+    }
+
     // equals, hashCode, toString
     @Override
     public boolean equals(Object o) {
@@ -57,12 +83,14 @@ public class PredictionResponse {
         PredictionResponse that = (PredictionResponse) o;
         return java.util.Objects.equals(risk, that.risk) &&
                 java.util.Objects.equals(probability, that.probability) &&
-                java.util.Objects.equals(explanation, that.explanation);
+                java.util.Objects.equals(explanation, that.explanation) &&
+                java.util.Objects.equals(drivers, that.drivers) &&
+                java.util.Objects.equals(modelVersion, that.modelVersion);
     }
 
     @Override
     public int hashCode() {
-        return java.util.Objects.hash(risk, probability, explanation);
+        return java.util.Objects.hash(risk, probability, explanation, drivers, modelVersion);
     }
 
     @Override
@@ -71,6 +99,8 @@ public class PredictionResponse {
                 "risk=" + risk +
                 ", probability=" + probability +
                 ", explanation='" + explanation + '\'' +
+                ", drivers=" + drivers +
+                ", modelVersion='" + modelVersion + '\'' +
                 '}';
     }
 }
\ No newline at end of file
@@ -0,0 +1,30 @@
+package com.medbot.dto;
+
+// com.google.cloud.Timestamp as mldata's Jackson writes it: {"seconds": ..., "nanos": ...}
+public class RecordTimestamp implements Comparable<RecordTimestamp> {
+    private long seconds;
+    private int nanos;
+
+    public RecordTimestamp() {}
+
+    public RecordTimestamp(long seconds, int nanos) {
+        this.seconds = seconds;
+        this.nanos = nanos;
+    }
+
+    public long getSeconds() { return seconds; }
+    public void setSeconds(long seconds) { this.seconds = seconds; }
+    public int getNanos() { return nanos; }
+    public void setNanos(int nanos) { this.nanos = nanos; }
+
+    @Override
+    public int compareTo(RecordTimestamp other) {
+        int bySeconds = Long.compare(seconds, other.seconds);
+        return bySeconds != 0 ? bySeconds : Integer.compare(nanos, other.nanos);
+    }
+
+    @Override
+    public String toString() {
+        return java.time.Instant.ofEpochSecond(seconds, nanos).toString();
+    }
+}
\ No newline at end of file
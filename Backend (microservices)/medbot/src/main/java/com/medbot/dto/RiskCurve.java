@@ -0,0 +1,35 @@
+package com.medbot.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+public class RiskCurve {
+    @JsonProperty("feature")
+    private String feature;
+
+    @JsonProperty("values")
+    private double[] values;  // Raw inputs; numeric features are clipped to the training range by the model
+
+    @JsonProperty("probabilities")
+    private double[] probabilities;  // probabilities[i] is the risk at values[i]
+
+    @JsonProperty("modelVersion")
+    private String modelVersion;
+
+    public RiskCurve() {}
+
+    public RiskCurve(String feature, double[] values, double[] probabilities, String modelVersion) {
+        this.feature = feature;
+        this.values = values;
+        this.probabilities = probabilities;
+        this.modelVersion = modelVersion;
+    }
+
+    public String getFeature() { return feature; }
+    public void setFeature(String feature) { this.feature = feature; }
+    public double[] getValues() { return values; }
+    public void setValues(double[] values) { this.values = values; }
+    public double[] getProbabilities() { return probabilities; }
+    public void setProbabilities(double[] probabilities) { this.probabilities = probabilities; }
+    public String getModelVersion() { return modelVersion; }
+    public void setModelVersion(String modelVersion) { this.modelVersion = modelVersion; }
+}
\ No newline at end of file
@@ -0,0 +1,49 @@
+package com.medbot.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+// Materialized risk for one patient, scored from their latest record by the risk store refresh
+public class RiskScore {
+    @JsonProperty("patientId")
+    private String patientId;
+
+    @JsonProperty("probability")
+    private double probability;
+
+    @JsonProperty("risk")
+    private int risk;
+
+    @JsonProperty("recordTime")
+    private RecordTimestamp recordTime;  // Server timestamp of the record that was scored
+
+    @JsonProperty("modelVersion")
+    private String modelVersion;
+
+    @JsonProperty("scoredAt")
+    private String scoredAt;  // ISO-8601
+
+    public RiskScore() {}
+
+    public RiskScore(String patientId, double probability, int risk, RecordTimestamp recordTime,
+                     String modelVersion, String scoredAt) {
+        this.patientId = patientId;
+        this.probability = probability;
+        this.risk = risk;
+        this.recordTime = recordTime;
+        this.modelVersion = modelVersion;
+        this.scoredAt = scoredAt;
+    }
+
+    public String getPatientId() { return patientId; }
+    public void setPatientId(String patientId) { this.patientId = patientId; }
+    public double getProbability() { return probability; }
+    public void setProbability(double probability) { this.probability = probability; }
+    public int getRisk() { return risk; }
+    public void setRisk(int risk) { this.risk = risk; }
+    public RecordTimestamp getRecordTime() { return recordTime; }
+    public void setRecordTime(RecordTimestamp recordTime) { this.recordTime = recordTime; }
+    public String getModelVersion() { return modelVersion; }
+    public void setModelVersion(String modelVersion) { this.modelVersion = modelVersion; }
+    public String getScoredAt() { return scoredAt; }
+    public void setScoredAt(String scoredAt) { this.scoredAt = scoredAt; }
+}
\ No newline at end of file
@@ -0,0 +1,25 @@
+package com.medbot.dto;
+
+import java.util.List;
+
+// On-disk form of the risk store, so a restart resumes from the watermark instead of re-scoring everyone
+public class RiskStoreSnapshot {
+    private RecordTimestamp watermark;
+    private String modelVersion;
+    private List<RiskScore> scores;
+
+    public RiskStoreSnapshot() {}
+
+    public RiskStoreSnapshot(RecordTimestamp watermark, String modelVersion, List<RiskScore> scores) {
+        this.watermark = watermark;
+        this.modelVersion = modelVersion;
+        this.scores = scores;
+    }
+
+    public RecordTimestamp getWatermark() { return watermark; }
+    public void setWatermark(RecordTimestamp watermark) { this.watermark = watermark; }
+    public String getModelVersion() { return modelVersion; }
+    public void setModelVersion(String modelVersion) { this.modelVersion = modelVersion; }
+    public List<RiskScore> getScores() { return scores; }
+    public void setScores(List<RiskScore> scores) { this.scores = scores; }
+}
\ No newline at end of file
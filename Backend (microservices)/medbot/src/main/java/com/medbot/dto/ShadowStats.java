@@ -0,0 +1,66 @@
+package com.medbot.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+public class ShadowStats {
+    @JsonProperty("version")
+    private String version;
+
+    @JsonProperty("rowsScored")
+    private Long rowsScored;
+
+    @JsonProperty("dropped")
+    private Long dropped;  // Batches skipped because the shadow queue was full or the shadow failed
+
+    @JsonProperty("activeMeanMicros")
+    private Double activeMeanMicros;  // Per engine call
+
+    @JsonProperty("shadowMeanMicros")
+    private Double shadowMeanMicros;
+
+    @JsonProperty("latencyDeltaMicros")
+    private Double latencyDeltaMicros;  // shadow - active; positive means the candidate is slower
+
+    @JsonProperty("disagreementRate")
+    private Double disagreementRate;  // Share of rows where the 0.5-threshold risk label differs
+
+    @JsonProperty("meanAbsProbabilityDiff")
+    private Double meanAbsProbabilityDiff;
+
+    // Default constructor
+    public ShadowStats() {
+    }
+
+    // Parameterized constructor
+    public ShadowStats(String version, Long rowsScored, Long dropped, Double activeMeanMicros, Double shadowMeanMicros,
+                       Double latencyDeltaMicros, Double disagreementRate, Double meanAbsProbabilityDiff) {
+        this.version = version;
+        this.rowsScored = rowsScored;
+        this.dropped = dropped;
+        this.activeMeanMicros = activeMeanMicros;
+        this.shadowMeanMicros = shadowMeanMicros;
+        this.latencyDeltaMicros = latencyDeltaMicros;
+        this.disagreementRate = disagreementRate;
+        this.meanAbsProbabilityDiff = meanAbsProbabilityDiff;
+    }
+
+    // Getters
+    public String getVersion() { return version; }
+    public Long getRowsScored() { return rowsScored; }
+    public Long getDropped() { return dropped; }
+    public Double getActiveMeanMicros() { return activeMeanMicros; }
+    public Double getShadowMeanMicros() { return shadowMeanMicros; }
+    public Double getLatencyDeltaMicros() { return latencyDeltaMicros; }
+    public Double getDisagreementRate() { return disagreementRate; }
+    public Double getMeanAbsProbabilityDiff() { return meanAbsProbabilityDiff; }
+
+    // Setters
+    public void setVersion(String version) { this.version = version; }
+    public void setRowsScored(Long rowsScored) { this.rowsScored = rowsScored; }
+    public void setDropped(Long dropped) { this.dropped = dropped; }
+    public void setActiveMeanMicros(Double activeMeanMicros) { this.activeMeanMicros = activeMeanMicros; }
+    public void setShadowMeanMicros(Double shadowMeanMicros) { this.shadowMeanMicros = shadowMeanMicros; }
+    public void setLatencyDeltaMicros(Double latencyDeltaMicros) { this.latencyDeltaMicros = latencyDeltaMicros; }
+    public void setDisagreementRate(Double disagreementRate) { this.disagreementRate = disagreementRate; }
+    public void setMeanAbsProbabilityDiff(Double meanAbsProbabilityDiff) { this.meanAbsProbabilityDiff = meanAbsProbabilityDiff; }
+}
\ No newline at end of file
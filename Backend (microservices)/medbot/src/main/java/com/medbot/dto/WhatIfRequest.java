@@ -0,0 +1,23 @@
+package com.medbot.dto;
+
+// Base record plus the feature to sweep over [from, to] in increments of step
+public class WhatIfRequest {
+    private HealthRecord record;
+    private String feature;  // One of FeatureVectorizer.FEATURE_NAMES, e.g. "chol"
+    private Double from;
+    private Double to;
+    private Double step;
+
+    public WhatIfRequest() {}
+
+    public HealthRecord getRecord() { return record; }
+    public void setRecord(HealthRecord record) { this.record = record; }
+    public String getFeature() { return feature; }
+    public void setFeature(String feature) { this.feature = feature; }
+    public Double getFrom() { return from; }
+    public void setFrom(Double from) { this.from = from; }
+    public Double getTo() { return to; }
+    public void setTo(Double to) { this.to = to; }
+    public Double getStep() { return step; }
+    public void setStep(Double step) { this.step = step; }
+}
\ No newline at end of file
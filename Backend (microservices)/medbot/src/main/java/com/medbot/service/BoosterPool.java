@@ -0,0 +1,150 @@
+package com.medbot.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import ml.dmlc.xgboost4j.java.Booster;
+import ml.dmlc.xgboost4j.java.XGBoost;
+
+import java.io.ByteArrayInputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Fixed set of Booster instances loaded from the same model bytes. xgboost4j serializes predict()
+// per Booster, so each in-flight prediction borrows its own handle instead of queueing on one.
+// Closing disposes the idle Boosters at once and borrowed ones as they are given back, and fails
+// any later borrow, so a caller still holding a retired engine never reaches a freed native handle.
+public class BoosterPool implements AutoCloseable {
+    private static final AtomicLong INSTANCES = new AtomicLong();
+
+    private final List<Booster> boosters;
+    private final BlockingQueue<Booster> idle;
+    private final long borrowTimeoutMs;
+    private volatile boolean closed;
+
+    private final MeterRegistry registry;
+    private final Timer waitTimer;
+    private final Counter saturatedCounter;
+    private final Counter timeoutCounter;
+    private final List<Meter> meters = new ArrayList<>();
+
+    public BoosterPool(byte[] modelJson, String modelVersion, int size, int threadsPerBooster, long borrowTimeoutMs,
+                       MeterRegistry registry) throws Exception {
+        if (size < 1) {
+            throw new IllegalArgumentException("Booster pool size must be at least 1");
+        }
+        this.boosters = new ArrayList<>(size);
+        this.idle = new ArrayBlockingQueue<>(size);
+        this.borrowTimeoutMs = borrowTimeoutMs;
+        for (int i = 0; i < size; i++) {
+            Booster booster = XGBoost.loadModel(new ByteArrayInputStream(modelJson));
+            if (threadsPerBooster > 0) {
+                booster.setParam("nthread", threadsPerBooster);
+            }
+            boosters.add(booster);
+            idle.add(booster);
+        }
+
+        // Tagged per pool instance as well: loading a version that already has a pool (re-activation,
+        // shadow then activate) must not share, and on retirement remove, the live pool's meters
+        String instance = String.valueOf(INSTANCES.incrementAndGet());
+        this.registry = registry;
+        this.waitTimer = register(Timer.builder("medbot.booster.pool.wait")
+                .tag("model", modelVersion)
+                .tag("instance", instance)
+                .description("Time spent waiting to borrow a Booster")
+                .publishPercentiles(0.5, 0.99)
+                .register(registry));
+        this.saturatedCounter = register(Counter.builder("medbot.booster.pool.saturated")
+                .tag("model", modelVersion)
+                .tag("instance", instance)
+                .description("Borrows that found no idle Booster and had to wait")
+                .register(registry));
+        this.timeoutCounter = register(Counter.builder("medbot.booster.pool.timeouts")
+                .tag("model", modelVersion)
+                .tag("instance", instance)
+                .description("Borrows that gave up after the borrow timeout")
+                .register(registry));
+        register(Gauge.builder("medbot.booster.pool.size", boosters, List::size)
+                .tag("model", modelVersion)
+                .tag("instance", instance)
+                .register(registry));
+        register(Gauge.builder("medbot.booster.pool.active", this, BoosterPool::active)
+                .tag("model", modelVersion)
+                .tag("instance", instance)
+                .description("Boosters currently borrowed")
+                .register(registry));
+    }
+
+    public Booster borrow() throws InterruptedException {
+        if (closed) {
+            throw new IllegalStateException("Booster pool is closed");
+        }
+        Booster booster = idle.poll();
+        if (booster != null) {
+            waitTimer.record(0, TimeUnit.NANOSECONDS);
+            return booster;
+        }
+
+        saturatedCounter.increment();
+        long start = System.nanoTime();
+        booster = idle.poll(borrowTimeoutMs, TimeUnit.MILLISECONDS);
+        waitTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        if (booster == null) {
+            if (closed) {
+                throw new IllegalStateException("Booster pool is closed");
+            }
+            timeoutCounter.increment();
+            throw new IllegalStateException("No Booster available after " + borrowTimeoutMs + " ms");
+        }
+        return booster;
+    }
+
+    public void giveBack(Booster booster) {
+        idle.offer(booster);
+        if (closed) {
+            disposeIdle();  // Returned after close; poll() hands each Booster to exactly one disposer
+        }
+    }
+
+    public int size() {
+        return boosters.size();
+    }
+
+    public int active() {
+        return boosters.size() - idle.size();
+    }
+
+    // True when every Booster is borrowed, i.e. the next caller will have to wait
+    public boolean isSaturated() {
+        return idle.isEmpty();
+    }
+
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        meters.forEach(registry::remove);
+        disposeIdle();
+    }
+
+    private void disposeIdle() {
+        Booster booster;
+        while ((booster = idle.poll()) != null) {
+            booster.dispose();
+        }
+    }
+
+    private <T extends Meter> T register(T meter) {
+        meters.add(meter);
+        return meter;
+    }
+}
\ No newline at end of file
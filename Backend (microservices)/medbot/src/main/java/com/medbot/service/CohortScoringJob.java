@@ -0,0 +1,272 @@
+package com.medbot.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.medbot.dto.CohortSummary;
+import com.medbot.dto.HealthRecord;
+import com.medbot.dto.HealthRecordPage;
+import com.medbot.dto.RecordTimestamp;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// Population-wide risk scoring: streams every health record page by page (fetching the next page while
+// the current one is folded), keeps each user's latest record, scores them in chunks on a fork-join pool
+// straight against the active engine, and writes a CSV risk table plus a JSON distribution summary.
+// Replaces looping over /api/predict: no per-patient HTTP round trip, cache lookup or explanation text.
+@Service
+public class CohortScoringJob {
+    private static final int NUM_FEATURES = FeatureVectorizer.NUM_FEATURES;
+    private static final int HISTOGRAM_BINS = 10;
+    private static final DateTimeFormatter RUN_ID = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
+    private final ModelRegistry modelRegistry;
+    private final MldataRecordSource mldataSource;
+    private final InMemoryRecordSource memorySource;
+    private final ObjectMapper objectMapper;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+    private volatile CohortSummary lastSummary;
+
+    @Value("${medbot.cohort.source:mldata}")  // mldata or memory (synthetic stand-in)
+    private String sourceName;
+
+    @Value("${medbot.cohort.page-size:1000}")
+    private int pageSize;
+
+    @Value("${medbot.cohort.chunk-rows:2048}")  // Rows per engine call on the fork-join pool
+    private int chunkRows;
+
+    @Value("${medbot.cohort.parallelism:0}")  // 0 = one worker per core
+    private int parallelism;
+
+    @Value("${medbot.cohort.output-dir:cohort-reports}")
+    private String outputDir;
+
+    public CohortScoringJob(ModelRegistry modelRegistry, MldataRecordSource mldataSource,
+                            InMemoryRecordSource memorySource, ObjectMapper objectMapper) {
+        this.modelRegistry = modelRegistry;
+        this.mldataSource = mldataSource;
+        this.memorySource = memorySource;
+        this.objectMapper = objectMapper;
+    }
+
+    // Nightly report; disabled unless medbot.cohort.cron is set
+    @Scheduled(cron = "${medbot.cohort.cron:-}", zone = "UTC")
+    public void scheduledRun() {
+        try {
+            run();
+        } catch (Exception e) {
+            System.err.println("Scheduled cohort scoring failed: " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+
+    public CohortSummary run() throws IOException {
+        if (!running.compareAndSet(false, true)) {
+            throw new IllegalStateException("A cohort scoring run is already in progress");
+        }
+        try {
+            CohortSummary summary = execute(recordSource());
+            lastSummary = summary;
+            return summary;
+        } finally {
+            running.set(false);
+        }
+    }
+
+    public boolean isRunning() {
+        return running.get();
+    }
+
+    public CohortSummary lastSummary() {
+        return lastSummary;
+    }
+
+    private RecordSource recordSource() {
+        switch (sourceName) {
+            case "mldata":
+                return mldataSource;
+            case "memory":
+                return memorySource;
+            default:
+                throw new IllegalArgumentException("Unknown medbot.cohort.source: " + sourceName);
+        }
+    }
+
+    private CohortSummary execute(RecordSource source) throws IOException {
+        long start = System.nanoTime();
+        String runId = ZonedDateTime.now(ZoneOffset.UTC).format(RUN_ID);
+
+        // 1. Scan: the next page is requested before the current one is folded into the latest-per-user map
+        Map<String, HealthRecord> latest = new HashMap<>();
+        long scanned = 0;
+        int pages = 0;
+        CompletableFuture<HealthRecordPage> pending = source.fetchPage(null, pageSize);
+        while (pending != null) {
+            HealthRecordPage page = pending.join();
+            pages++;
+            pending = page.getNextPageToken() != null ? source.fetchPage(page.getNextPageToken(), pageSize) : null;
+            if (page.getRecords() == null) {
+                continue;
+            }
+            for (HealthRecord record : page.getRecords()) {
+                scanned++;
+                if (record != null && record.getUserId() != null) {
+                    latest.merge(record.getUserId(), record, CohortScoringJob::newer);
+                }
+            }
+        }
+        long fetched = System.nanoTime();
+
+        // 2. Score: one engine call per chunk, chunks spread over the fork-join pool
+        String[] userIds = latest.keySet().toArray(new String[0]);
+        Arrays.sort(userIds);
+        HealthRecord[] records = new HealthRecord[userIds.length];
+        for (int i = 0; i < userIds.length; i++) {
+            records[i] = latest.get(userIds[i]);
+        }
+
+        LoadedModel model = modelRegistry.lease();  // Stays open for the whole pass even if swapped out
+        float[] probabilities = new float[records.length];
+        int workers = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        ForkJoinPool pool = new ForkJoinPool(workers);
+        try {
+            pool.invoke(new ScoreChunk(model.getEngine(), records, probabilities, 0, records.length,
+                    Math.max(1, chunkRows)));
+        } finally {
+            pool.shutdown();
+            model.release();
+        }
+        long scored = System.nanoTime();
+
+        // 3. Report
+        Path dir = Paths.get(outputDir);
+        Files.createDirectories(dir);
+        Path table = dir.resolve("risk-table-" + runId + ".csv");
+        writeRiskTable(table, userIds, records, probabilities);
+
+        CohortSummary summary = summarize(probabilities);
+        summary.setRunId(runId);
+        summary.setSource(source.name());
+        summary.setModelVersion(model.getVersion());
+        summary.setRecordsScanned(scanned);
+        summary.setPagesFetched(pages);
+        summary.setFetchMillis(TimeUnit.NANOSECONDS.toMillis(fetched - start));
+        summary.setScoreMillis(TimeUnit.NANOSECONDS.toMillis(scored - fetched));
+        summary.setRiskTable(table.toString());
+        summary.setTotalMillis(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        objectMapper.writerWithDefaultPrettyPrinter()
+                .writeValue(dir.resolve("summary-" + runId + ".json").toFile(), summary);
+        return summary;
+    }
+
+    // Records without a timestamp lose to any record that has one
+    static HealthRecord newer(HealthRecord current, HealthRecord candidate) {
+        RecordTimestamp a = current.getTimestamp();
+        RecordTimestamp b = candidate.getTimestamp();
+        if (b == null) {
+            return current;
+        }
+        return a == null || b.compareTo(a) > 0 ? candidate : current;
+    }
+
+    private static void writeRiskTable(Path table, String[] userIds, HealthRecord[] records,
+                                       float[] probabilities) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(table)) {
+            writer.write("userId,probability,risk,recordTime\n");
+            for (int i = 0; i < userIds.length; i++) {
+                RecordTimestamp timestamp = records[i].getTimestamp();
+                writer.write(csv(userIds[i]));
+                writer.write(',');
+                writer.write(Float.toString(probabilities[i]));
+                writer.write(probabilities[i] > 0.5f ? ",1," : ",0,");
+                writer.write(timestamp != null ? timestamp.toString() : "");
+                writer.write('\n');
+            }
+        }
+    }
+
+    private static String csv(String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    private static CohortSummary summarize(float[] probabilities) {
+        int[] histogram = new int[HISTOGRAM_BINS];
+        int highRisk = 0;
+        double sum = 0.0;
+        for (float p : probabilities) {
+            histogram[Math.min(HISTOGRAM_BINS - 1, Math.max(0, (int) (p * HISTOGRAM_BINS)))]++;
+            if (p > 0.5f) {
+                highRisk++;
+            }
+            sum += p;
+        }
+        int n = probabilities.length;
+        CohortSummary summary = new CohortSummary();
+        summary.setPatients(n);
+        summary.setHighRisk(highRisk);
+        summary.setHighRiskRate(n > 0 ? (double) highRisk / n : 0.0);
+        summary.setMeanProbability(n > 0 ? sum / n : 0.0);
+        summary.setHistogram(histogram);
+        return summary;
+    }
+
+    // Splits [from, to) until a range fits one chunk, then vectorizes and scores it with a single engine call
+    private static final class ScoreChunk extends RecursiveAction {
+        private final InferenceEngine engine;
+        private final HealthRecord[] records;
+        private final float[] probabilities;
+        private final int from;
+        private final int to;
+        private final int chunkRows;
+
+        ScoreChunk(InferenceEngine engine, HealthRecord[] records, float[] probabilities, int from, int to,
+                   int chunkRows) {
+            this.engine = engine;
+            this.records = records;
+            this.probabilities = probabilities;
+            this.from = from;
+            this.to = to;
+            this.chunkRows = chunkRows;
+        }
+
+        @Override
+        protected void compute() {
+            int rows = to - from;
+            if (rows <= chunkRows) {
+                if (rows == 0) {
+                    return;
+                }
+                float[] features = new float[rows * NUM_FEATURES];
+                for (int row = 0; row < rows; row++) {
+                    FeatureVectorizer.vectorize(records[from + row], features, row * NUM_FEATURES);
+                }
+                System.arraycopy(engine.predict(features, rows), 0, probabilities, from, rows);
+                return;
+            }
+            int mid = from + rows / 2;
+            invokeAll(new ScoreChunk(engine, records, probabilities, from, mid, chunkRows),
+                    new ScoreChunk(engine, records, probabilities, mid, to, chunkRows));
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,267 @@
+package com.medbot.service;
+
+import com.medbot.dto.DriftReport;
+import com.medbot.dto.FeatureDrift;
+import com.medbot.dto.HealthRecord;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Streaming sketches of every raw model input and of the output probability, compared against the
+// scaler statistics the model was trained with. Writes go to a fixed set of striped shards, picked by
+// thread id and probed onward on contention like LongAdder's cells, so memory stays bounded however
+// many (short-lived) threads predict; a report merges all shards on read (Welford/Chan for mean and
+// variance, bin-wise sums for the histograms that back the quantiles).
+@Component
+public class DriftMonitor {
+    private static final int NUM_FEATURES = FeatureVectorizer.NUM_FEATURES;
+    private static final int NUM_NUMERIC = FeatureVectorizer.NUM_NUMERIC;
+    private static final int PROBABILITY = NUM_FEATURES;  // Channel after the 10 inputs
+    private static final int CHANNELS = NUM_FEATURES + 1;
+
+    // Equi-width histogram per channel; values outside [low, high) land in the first/last bin
+    private static final int BINS = 128;
+    private static final double[] BIN_LOW = new double[CHANNELS];
+    private static final double[] BIN_WIDTH = new double[CHANNELS];
+
+    static {
+        for (int i = 0; i < NUM_NUMERIC; i++) {
+            // Training mean +/- 4 std covers the clip range of every numeric input with room to spare
+            double low = FeatureVectorizer.SCALER_MEANS[i] - 4 * FeatureVectorizer.SCALER_STDS[i];
+            BIN_LOW[i] = low;
+            BIN_WIDTH[i] = 8 * FeatureVectorizer.SCALER_STDS[i] / BINS;
+        }
+        for (int i = NUM_NUMERIC; i < NUM_FEATURES; i++) {
+            BIN_LOW[i] = -0.5;  // Categorical codes are small integers: one bin each for 0..127
+            BIN_WIDTH[i] = 1.0;
+        }
+        BIN_LOW[PROBABILITY] = 0.0;
+        BIN_WIDTH[PROBABILITY] = 1.0 / BINS;
+    }
+
+    private final Shard[] shards = newShards(Runtime.getRuntime().availableProcessors());
+    private final Instant since = Instant.now();
+
+    @Value("${medbot.drift.enabled:true}")
+    private boolean enabled;
+
+    // Hot path: one uncontended lock plus a handful of arithmetic ops per channel, no allocation
+    public void record(HealthRecord record, double probability) {
+        if (!enabled || record == null) {
+            return;
+        }
+        Shard shard = acquire();
+        try {
+            shard.observe(0, record.getAge());
+            shard.observe(1, record.getThalach());
+            shard.observe(2, record.getOldpeak());
+            shard.observe(3, record.getTrestbps());
+            shard.observe(4, record.getBmi());
+            shard.observe(5, record.getChol());
+            shard.observe(6, record.getCa());
+            shard.observe(7, record.getThal());
+            shard.observe(8, record.getRestecg());
+            shard.observe(9, record.getCp());
+            shard.add(PROBABILITY, probability);
+            shard.records++;
+        } finally {
+            shard.lock.unlock();
+        }
+    }
+
+    public DriftReport report() {
+        long[] count = new long[CHANNELS];
+        long[] missing = new long[CHANNELS];
+        long[] clipLow = new long[CHANNELS];
+        long[] clipHigh = new long[CHANNELS];
+        double[] mean = new double[CHANNELS];
+        double[] m2 = new double[CHANNELS];
+        double[] min = new double[CHANNELS];
+        double[] max = new double[CHANNELS];
+        long[] histogram = new long[CHANNELS * BINS];
+        Arrays.fill(min, Double.POSITIVE_INFINITY);
+        Arrays.fill(max, Double.NEGATIVE_INFINITY);
+
+        long observations = 0;
+        for (Shard shard : shards) {
+            shard.lock.lock();  // Held only while copying one shard, so writers stall for microseconds
+            try {
+                observations += shard.records;
+                merge(shard, count, missing, clipLow, clipHigh, mean, m2, min, max, histogram);
+            } finally {
+                shard.lock.unlock();
+            }
+        }
+
+        List<FeatureDrift> features = new ArrayList<>(NUM_FEATURES);
+        for (int c = 0; c < NUM_FEATURES; c++) {
+            features.add(channelReport(c, FeatureVectorizer.FEATURE_NAMES[c], count, missing, clipLow, clipHigh,
+                    mean, m2, min, max, histogram));
+        }
+        FeatureDrift output = channelReport(PROBABILITY, "probability", count, missing, clipLow, clipHigh,
+                mean, m2, min, max, histogram);
+        return new DriftReport(since.toString(), observations, features, output);
+    }
+
+    // The thread's home shard if free, else the next free one; blocks on the home shard only when all are busy
+    private Shard acquire() {
+        int mask = shards.length - 1;
+        long id = Thread.currentThread().getId();
+        int home = (((int) (id ^ (id >>> 32)) * 0x9E3779B9) >>> 16) & mask;
+        for (int i = 0; i <= mask; i++) {
+            Shard shard = shards[(home + i) & mask];
+            if (shard.lock.tryLock()) {
+                return shard;
+            }
+        }
+        Shard shard = shards[home];
+        shard.lock.lock();
+        return shard;
+    }
+
+    // Twice the core count, rounded up to a power of two, keeps collisions rare without per-thread state
+    private static Shard[] newShards(int cores) {
+        int size = Integer.highestOneBit(Math.max(1, cores * 2 - 1)) << 1;
+        Shard[] shards = new Shard[size];
+        for (int i = 0; i < size; i++) {
+            shards[i] = new Shard();
+        }
+        return shards;
+    }
+
+    private static void merge(Shard shard, long[] count, long[] missing, long[] clipLow, long[] clipHigh,
+                              double[] mean, double[] m2, double[] min, double[] max, long[] histogram) {
+        for (int c = 0; c < CHANNELS; c++) {
+            long n = shard.count[c];
+            missing[c] += shard.missing[c];
+            clipLow[c] += shard.clipLow[c];
+            clipHigh[c] += shard.clipHigh[c];
+            if (n == 0) {
+                continue;
+            }
+            // Chan et al. pairwise combination of (count, mean, M2)
+            long total = count[c] + n;
+            double delta = shard.mean[c] - mean[c];
+            mean[c] += delta * n / total;
+            m2[c] += shard.m2[c] + delta * delta * ((double) count[c] * n / total);
+            count[c] = total;
+            min[c] = Math.min(min[c], shard.min[c]);
+            max[c] = Math.max(max[c], shard.max[c]);
+        }
+        for (int b = 0; b < histogram.length; b++) {
+            histogram[b] += shard.histogram[b];
+        }
+    }
+
+    private static FeatureDrift channelReport(int c, String name, long[] count, long[] missing, long[] clipLow,
+                                              long[] clipHigh, double[] mean, double[] m2, double[] min,
+                                              double[] max, long[] histogram) {
+        FeatureDrift drift = new FeatureDrift();
+        drift.setFeature(name);
+        drift.setCount(count[c]);
+        long seen = count[c] + missing[c];
+        drift.setMissingRate(seen > 0 ? (double) missing[c] / seen : 0.0);
+        if (count[c] == 0) {
+            return drift;
+        }
+        drift.setMean(mean[c]);
+        drift.setStd(count[c] > 1 ? Math.sqrt(m2[c] / (count[c] - 1)) : 0.0);
+        drift.setMin(min[c]);
+        drift.setMax(max[c]);
+        drift.setP05(quantile(histogram, c, count[c], 0.05));
+        drift.setP50(quantile(histogram, c, count[c], 0.50));
+        drift.setP95(quantile(histogram, c, count[c], 0.95));
+        if (c < NUM_NUMERIC) {
+            double trainingMean = FeatureVectorizer.SCALER_MEANS[c];
+            double trainingStd = FeatureVectorizer.SCALER_STDS[c];
+            drift.setTrainingMean(trainingMean);
+            drift.setTrainingStd(trainingStd);
+            drift.setMeanShift((mean[c] - trainingMean) / trainingStd);  // In training standard deviations
+            drift.setClipLowRate((double) clipLow[c] / count[c]);
+            drift.setClipHighRate((double) clipHigh[c] / count[c]);
+        }
+        return drift;
+    }
+
+    // Linear interpolation inside the bin holding the q-th observation
+    private static double quantile(long[] histogram, int c, long count, double q) {
+        double target = q * count;
+        long cumulative = 0;
+        int base = c * BINS;
+        for (int b = 0; b < BINS; b++) {
+            long inBin = histogram[base + b];
+            if (inBin > 0 && cumulative + inBin >= target) {
+                double fraction = (target - cumulative) / inBin;
+                return BIN_LOW[c] + (b + fraction) * BIN_WIDTH[c];
+            }
+            cumulative += inBin;
+        }
+        return BIN_LOW[c] + BINS * BIN_WIDTH[c];
+    }
+
+    // Accumulators for one stripe; every field is read and written under lock
+    private static final class Shard {
+        final ReentrantLock lock = new ReentrantLock();
+        final long[] count = new long[CHANNELS];
+        final long[] missing = new long[CHANNELS];
+        final long[] clipLow = new long[CHANNELS];
+        final long[] clipHigh = new long[CHANNELS];
+        final double[] mean = new double[CHANNELS];
+        final double[] m2 = new double[CHANNELS];
+        final double[] min = new double[CHANNELS];
+        final double[] max = new double[CHANNELS];
+        final long[] histogram = new long[CHANNELS * BINS];
+        long records;
+
+        Shard() {
+            Arrays.fill(min, Double.POSITIVE_INFINITY);
+            Arrays.fill(max, Double.NEGATIVE_INFINITY);
+        }
+
+        void observe(int c, Double value) {
+            if (value == null) {
+                missing[c]++;
+                return;
+            }
+            double v = value;
+            if (v < FeatureVectorizer.CLIP_LOW[c]) {
+                clipLow[c]++;
+            } else if (v > FeatureVectorizer.CLIP_HIGH[c]) {
+                clipHigh[c]++;
+            }
+            add(c, v);
+        }
+
+        void observe(int c, Integer value) {
+            if (value == null) {
+                missing[c]++;
+                return;
+            }
+            add(c, value);
+        }
+
+        void add(int c, double v) {
+            if (Double.isNaN(v)) {
+                missing[c]++;
+                return;
+            }
+            long n = ++count[c];
+            double delta = v - mean[c];
+            mean[c] += delta / n;
+            m2[c] += delta * (v - mean[c]);
+            if (v < min[c]) {
+                min[c] = v;
+            }
+            if (v > max[c]) {
+                max[c] = v;
+            }
+            int bin = (int) ((v - BIN_LOW[c]) / BIN_WIDTH[c]);
+            histogram[c * BINS + Math.max(0, Math.min(BINS - 1, bin))]++;
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,298 @@
+package com.medbot.service;
+
+import com.medbot.client.MldataClient;
+import com.medbot.dto.FeatureStoreStats;
+import com.medbot.dto.HealthRecord;
+import com.medbot.dto.HealthRecordPage;
+import com.medbot.dto.RecordTimestamp;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.locks.StampedLock;
+
+// Latest model inputs per patient, held in column arrays indexed by an open-addressing userId table.
+// Each row stores the clipped/standardized vector (ready for the engine) plus the raw inputs (NaN =
+// missing) that explanations, the cache key and drift sampling need. Kept current by a periodic delta
+// poll on the record timestamp and by mldata's change notifications, which mark a row stale until a
+// strictly newer record arrives (a read-through can still see the previous record while mldata's
+// latest-record cache catches up, and must not make the row fresh again). Readers take an optimistic StampedLock read and never block on the poller.
+@Component
+public class FeatureStore {
+    private static final int NUM_FEATURES = FeatureVectorizer.NUM_FEATURES;
+    private static final int EMPTY = -1;
+
+    private final MldataClient mldataClient;
+    private final StampedLock lock = new StampedLock();
+
+    // userId -> row, linear probing; table length is a power of two, at most half full
+    private String[] keys = new String[1024];
+    private int[] slotRows = newSlots(1024);
+
+    // Row-indexed columns
+    private float[] features = new float[512 * NUM_FEATURES];
+    private double[] raw = new double[512 * NUM_FEATURES];
+    private long[] timestamps = new long[512];  // Epoch nanos of the stored record
+    private boolean[] stale = new boolean[512];  // Invalidated: not served until a newer record is stored
+    private int rows;
+    private long keyChars;  // For the footprint estimate
+
+    private volatile RecordTimestamp watermark;  // Newest timestamp seen by the delta poll
+
+    @Value("${medbot.feature-store.enabled:true}")
+    private boolean enabled;
+
+    @Value("${medbot.feature-store.page-size:1000}")
+    private int pageSize;
+
+    @Value("${medbot.feature-store.overlap-seconds:60}")
+    private long overlapSeconds;
+
+    public FeatureStore(MldataClient mldataClient) {
+        this.mldataClient = mldataClient;
+    }
+
+    // Copies the patient's engine-ready vector into dest and returns their inputs as a HealthRecord;
+    // null if the patient is unknown or was invalidated since the last update
+    public HealthRecord lookup(String userId, float[] dest, int offset) {
+        if (!enabled) {
+            return null;
+        }
+        double[] rawRow = new double[NUM_FEATURES];
+        long stamp = lock.tryOptimisticRead();
+        boolean found;
+        try {
+            found = read(userId, dest, offset, rawRow);
+        } catch (RuntimeException e) {
+            found = false;  // Arrays swapped by a concurrent resize; retried below under the read lock
+            stamp = 0L;
+        }
+        if (!lock.validate(stamp)) {
+            stamp = lock.readLock();
+            try {
+                found = read(userId, dest, offset, rawRow);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        return found ? toRecord(userId, rawRow) : null;
+    }
+
+    // Stores the record if it is newer than what the store holds for its user (strictly newer once the
+    // row has been invalidated)
+    public void upsert(HealthRecord record) {
+        if (!enabled || record == null || record.getUserId() == null) {
+            return;
+        }
+        float[] vector = new float[NUM_FEATURES];
+        FeatureVectorizer.vectorize(record, vector, 0);
+        long timestamp = epochNanos(record.getTimestamp());
+
+        long stamp = lock.writeLock();
+        try {
+            int row = rowOf(record.getUserId());
+            if (row == EMPTY) {
+                row = addRow(record.getUserId());
+            } else if (stale[row] ? timestamp <= timestamps[row] : timestamp < timestamps[row]) {
+                return;  // Already holds a newer record, or this is the one that was invalidated
+            }
+            System.arraycopy(vector, 0, features, row * NUM_FEATURES, NUM_FEATURES);
+            for (int i = 0; i < NUM_FEATURES; i++) {
+                Double value = FeatureVectorizer.rawValue(record, i);
+                raw[row * NUM_FEATURES + i] = value != null ? value : Double.NaN;
+            }
+            timestamps[row] = timestamp;
+            stale[row] = false;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    // Change notification from mldata: stop serving the row until fresh data arrives
+    public void invalidate(String userId) {
+        long stamp = lock.writeLock();
+        try {
+            int row = rowOf(userId);
+            if (row != EMPTY) {
+                stale[row] = true;
+            }
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    // Delta poll: every record written since the watermark (the first poll loads everyone)
+    @Scheduled(fixedDelayString = "${medbot.feature-store.poll-ms:60000}")
+    public void poll() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            RecordTimestamp current = watermark;
+            RecordTimestamp since = current == null
+                    ? new RecordTimestamp(0, 0)
+                    : new RecordTimestamp(Math.max(0, current.getSeconds() - overlapSeconds), current.getNanos());
+            RecordTimestamp newest = current;
+            CompletableFuture<HealthRecordPage> pending = mldataClient.fetchChangesPage(since, null, pageSize);
+            while (pending != null) {
+                HealthRecordPage page = pending.join();
+                pending = page.getNextPageToken() != null
+                        ? mldataClient.fetchChangesPage(since, page.getNextPageToken(), pageSize)
+                        : null;
+                if (page.getRecords() == null) {
+                    continue;
+                }
+                for (HealthRecord record : page.getRecords()) {
+                    upsert(record);
+                    RecordTimestamp timestamp = record != null ? record.getTimestamp() : null;
+                    if (timestamp != null && (newest == null || timestamp.compareTo(newest) > 0)) {
+                        newest = timestamp;
+                    }
+                }
+            }
+            watermark = newest != null ? newest : since;
+        } catch (Exception e) {
+            System.err.println("Feature store poll failed: " + e.getMessage());
+        }
+    }
+
+    // Heap used by the store's own arrays and keys, and the same layout extrapolated to 1M patients
+    public FeatureStoreStats stats() {
+        long stamp = lock.readLock();
+        try {
+            long arrays = arrayBytes(keys.length, 4)          // keys: compressed references
+                    + arrayBytes(slotRows.length, 4)
+                    + arrayBytes(features.length, 4)
+                    + arrayBytes(raw.length, 8)
+                    + arrayBytes(timestamps.length, 8)
+                    + arrayBytes(stale.length, 1);
+            // Latin-1 String: 24-byte header + byte[] (16 + length, 8-aligned)
+            long strings = rows * 24L + rows * 16L + align(keyChars);
+            long used = arrays + strings;
+
+            double perPatient = rows > 0 ? (double) used / rows : 0.0;
+            // Per-patient cost at steady state: one row in each column, two slots at <= 50% load, one key
+            double avgKeyChars = rows > 0 ? (double) keyChars / rows : 12.0;
+            double steady = NUM_FEATURES * 4 + NUM_FEATURES * 8 + 8 + 1 + 2 * (4 + 4) + 24 + 16 + avgKeyChars;
+            return new FeatureStoreStats(rows, liveRows(), used, perPatient, (long) (steady * 1_000_000L), watermark);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    private boolean read(String userId, float[] dest, int offset, double[] rawRow) {
+        int row = rowOf(userId);
+        if (row == EMPTY || stale[row]) {
+            return false;
+        }
+        System.arraycopy(features, row * NUM_FEATURES, dest, offset, NUM_FEATURES);
+        System.arraycopy(raw, row * NUM_FEATURES, rawRow, 0, NUM_FEATURES);
+        return true;
+    }
+
+    private int rowOf(String userId) {
+        String[] table = keys;
+        int[] tableRows = slotRows;
+        int mask = table.length - 1;
+        for (int slot = spread(userId.hashCode()) & mask; table[slot] != null; slot = (slot + 1) & mask) {
+            if (table[slot].equals(userId)) {
+                return tableRows[slot];
+            }
+        }
+        return EMPTY;
+    }
+
+    // Caller holds the write lock
+    private int addRow(String userId) {
+        if (rows == timestamps.length) {
+            int capacity = timestamps.length * 2;
+            features = Arrays.copyOf(features, capacity * NUM_FEATURES);
+            raw = Arrays.copyOf(raw, capacity * NUM_FEATURES);
+            timestamps = Arrays.copyOf(timestamps, capacity);
+            stale = Arrays.copyOf(stale, capacity);
+        }
+        if ((rows + 1) * 2 > keys.length) {
+            rehash(keys.length * 2);
+        }
+        int row = rows++;
+        insert(keys, slotRows, userId, row);
+        keyChars += userId.length();
+        return row;
+    }
+
+    private void rehash(int length) {
+        String[] newKeys = new String[length];
+        int[] newRows = newSlots(length);
+        for (int slot = 0; slot < keys.length; slot++) {
+            if (keys[slot] != null) {
+                insert(newKeys, newRows, keys[slot], slotRows[slot]);
+            }
+        }
+        keys = newKeys;
+        slotRows = newRows;
+    }
+
+    private int liveRows() {
+        int live = 0;
+        for (int row = 0; row < rows; row++) {
+            if (!stale[row]) {
+                live++;
+            }
+        }
+        return live;
+    }
+
+    private static void insert(String[] table, int[] tableRows, String userId, int row) {
+        int mask = table.length - 1;
+        int slot = spread(userId.hashCode()) & mask;
+        while (table[slot] != null) {
+            slot = (slot + 1) & mask;
+        }
+        tableRows[slot] = row;
+        table[slot] = userId;
+    }
+
+    private static HealthRecord toRecord(String userId, double[] rawRow) {
+        HealthRecord record = new HealthRecord();
+        record.setUserId(userId);
+        record.setAge(boxed(rawRow[0]));
+        record.setThalach(boxed(rawRow[1]));
+        record.setOldpeak(boxed(rawRow[2]));
+        record.setTrestbps(boxed(rawRow[3]));
+        record.setBmi(boxed(rawRow[4]));
+        record.setChol(boxed(rawRow[5]));
+        record.setCa(Double.isNaN(rawRow[6]) ? null : (int) rawRow[6]);
+        record.setThal(Double.isNaN(rawRow[7]) ? null : (int) rawRow[7]);
+        record.setRestecg(Double.isNaN(rawRow[8]) ? null : (int) rawRow[8]);
+        record.setCp(Double.isNaN(rawRow[9]) ? null : (int) rawRow[9]);
+        return record;
+    }
+
+    private static Double boxed(double value) {
+        return Double.isNaN(value) ? null : value;
+    }
+
+    private static long epochNanos(RecordTimestamp timestamp) {
+        return timestamp == null ? 0L : timestamp.getSeconds() * 1_000_000_000L + timestamp.getNanos();
+    }
+
+    private static int spread(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+
+    private static int[] newSlots(int length) {
+        int[] slots = new int[length];
+        Arrays.fill(slots, EMPTY);
+        return slots;
+    }
+
+    private static long arrayBytes(long length, int elementBytes) {
+        return align(16 + length * elementBytes);
+    }
+
+    private static long align(long bytes) {
+        return (bytes + 7) & ~7L;
+    }
+}
\ No newline at end of file
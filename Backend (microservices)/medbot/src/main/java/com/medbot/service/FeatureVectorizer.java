@@ -0,0 +1,101 @@
+package com.medbot.service;
+
+import com.medbot.dto.HealthRecord;
+
+// Turns a HealthRecord into the 10 model features without boxing or temporary collections.
+// Numeric features are imputed with the training mean, clipped, then standardized; categorical
+// features are passed through with the training defaults.
+public final class FeatureVectorizer {
+    public static final int NUM_FEATURES = 10;
+    public static final int NUM_NUMERIC = 6;
+
+    // Model input names in feature-vector order
+    public static final String[] FEATURE_NAMES = {
+            "age", "thalach", "oldpeak", "trestbps", "bmi", "chol", "ca", "thal", "restecg", "cp"
+    };
+
+    // Numeric feature order: age, thalach, oldpeak, trestbps, bmi, chol
+    static final double[] SCALER_MEANS = {
+            53.561934411571166, 133.42083179822853, 3.290263101026517, 145.87632758466876,
+            27.59021092690132, 315.6976306565412
+    };
+    static final double[] SCALER_STDS = {
+            12.522074324666445, 38.252686702130454, 1.6037072754870243, 29.156524438809672,
+            6.605567052183025, 92.58089559773687
+    };
+    static final double[] CLIP_LOW = {35.0, 90.0, 0.0, 110.0, 20.0, 150.0};
+    static final double[] CLIP_HIGH = {70.0, 180.0, 4.0, 160.0, 35.0, 300.0};
+
+    // Categorical defaults: ca, thal, restecg, cp
+    static final float DEFAULT_CA = 0f;
+    static final float DEFAULT_THAL = 3f;
+    static final float DEFAULT_RESTECG = 0f;
+    static final float DEFAULT_CP = 2f;
+
+    private FeatureVectorizer() {
+    }
+
+    // Writes the features for one record into dest[offset..offset + NUM_FEATURES)
+    public static void vectorize(HealthRecord record, float[] dest, int offset) {
+        Double age = record.getAge();
+        Double thalach = record.getThalach();
+        Double oldpeak = record.getOldpeak();
+        Double trestbps = record.getTrestbps();
+        Double bmi = record.getBmi();
+        Double chol = record.getChol();
+
+        dest[offset] = standardize(0, age != null ? age : SCALER_MEANS[0]);
+        dest[offset + 1] = standardize(1, thalach != null ? thalach : SCALER_MEANS[1]);
+        dest[offset + 2] = standardize(2, oldpeak != null ? oldpeak : SCALER_MEANS[2]);
+        dest[offset + 3] = standardize(3, trestbps != null ? trestbps : SCALER_MEANS[3]);
+        dest[offset + 4] = standardize(4, bmi != null ? bmi : SCALER_MEANS[4]);
+        dest[offset + 5] = standardize(5, chol != null ? chol : SCALER_MEANS[5]);
+
+        Integer ca = record.getCa();
+        Integer thal = record.getThal();
+        Integer restecg = record.getRestecg();
+        Integer cp = record.getCp();
+        dest[offset + 6] = ca != null ? ca.floatValue() : DEFAULT_CA;
+        dest[offset + 7] = thal != null ? thal.floatValue() : DEFAULT_THAL;
+        dest[offset + 8] = restecg != null ? restecg.floatValue() : DEFAULT_RESTECG;
+        dest[offset + 9] = cp != null ? cp.floatValue() : DEFAULT_CP;
+    }
+
+    // Raw (unclipped, unimputed) input for feature i; null when the record leaves it empty
+    public static Double rawValue(HealthRecord record, int i) {
+        switch (i) {
+            case 0: return record.getAge();
+            case 1: return record.getThalach();
+            case 2: return record.getOldpeak();
+            case 3: return record.getTrestbps();
+            case 4: return record.getBmi();
+            case 5: return record.getChol();
+            case 6: return record.getCa() != null ? record.getCa().doubleValue() : null;
+            case 7: return record.getThal() != null ? record.getThal().doubleValue() : null;
+            case 8: return record.getRestecg() != null ? record.getRestecg().doubleValue() : null;
+            case 9: return record.getCp() != null ? record.getCp().doubleValue() : null;
+            default: throw new IllegalArgumentException("No feature " + i);
+        }
+    }
+
+    // Position of a model input in the feature vector, or -1 for an unknown name
+    public static int indexOf(String featureName) {
+        for (int i = 0; i < NUM_FEATURES; i++) {
+            if (FEATURE_NAMES[i].equals(featureName)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    // Model-space value of feature i for a raw input, as vectorize() would write it
+    public static float encode(int i, double raw) {
+        return i < NUM_NUMERIC ? standardize(i, raw) : (float) Math.rint(raw);
+    }
+
+    // Clip then standardize numeric feature i, using the same double arithmetic as training
+    static float standardize(int i, double val) {
+        double clipped = Math.max(CLIP_LOW[i], Math.min(CLIP_HIGH[i], val));
+        return (float) ((clipped - SCALER_MEANS[i]) / SCALER_STDS[i]);
+    }
+}
\ No newline at end of file
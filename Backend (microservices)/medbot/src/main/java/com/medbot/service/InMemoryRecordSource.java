@@ -0,0 +1,78 @@
+package com.medbot.service;
+
+import com.medbot.dto.HealthRecord;
+import com.medbot.dto.HealthRecordPage;
+import com.medbot.dto.RecordTimestamp;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+
+// Stand-in for health_records when neither Firestore nor the emulator is available: a seeded synthetic
+// cohort with several records per patient, paged by offset
+@Component
+public class InMemoryRecordSource implements RecordSource {
+    @Value("${medbot.cohort.memory.patients:50000}")
+    private int patients;
+
+    @Value("${medbot.cohort.memory.records-per-patient:3}")
+    private int recordsPerPatient;
+
+    private volatile List<HealthRecord> records;  // Generated on first use
+
+    @Override
+    public String name() {
+        return "memory";
+    }
+
+    @Override
+    public CompletableFuture<HealthRecordPage> fetchPage(String pageToken, int pageSize) {
+        List<HealthRecord> all = records();
+        int from = pageToken == null ? 0 : Integer.parseInt(pageToken);
+        int to = Math.min(from + pageSize, all.size());
+        String next = to < all.size() ? Integer.toString(to) : null;
+        return CompletableFuture.completedFuture(new HealthRecordPage(new ArrayList<>(all.subList(from, to)), next));
+    }
+
+    private List<HealthRecord> records() {
+        List<HealthRecord> current = records;
+        if (current == null) {
+            synchronized (this) {
+                if (records == null) {
+                    records = generate();
+                }
+                current = records;
+            }
+        }
+        return current;
+    }
+
+    private List<HealthRecord> generate() {
+        Random random = new Random(42);
+        long start = 1_700_000_000L;
+        List<HealthRecord> generated = new ArrayList<>(patients * recordsPerPatient);
+        // Interleave patients so a user's records land on different pages, as in document-id order
+        for (int n = 0; n < recordsPerPatient; n++) {
+            for (int p = 0; p < patients; p++) {
+                HealthRecord record = new HealthRecord();
+                record.setUserId("patient-" + p);
+                record.setTimestamp(new RecordTimestamp(start + n * 86_400L + random.nextInt(3_600), 0));
+                record.setAge(29 + random.nextInt(49) * 1.0);
+                record.setThalach(71 + random.nextDouble() * 131);
+                record.setOldpeak(Math.round(random.nextDouble() * 62) / 10.0);
+                record.setTrestbps(90 + random.nextDouble() * 110);
+                record.setBmi(15 + random.nextDouble() * 26);
+                record.setChol(120 + random.nextDouble() * 280);
+                record.setCa(random.nextInt(5));
+                record.setThal(3 + random.nextInt(5));
+                record.setRestecg(random.nextInt(3));
+                record.setCp(1 + random.nextInt(4));
+                generated.add(record);
+            }
+        }
+        return generated;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,15 @@
+package com.medbot.service;
+
+// Scores standardized feature rows produced by FeatureVectorizer
+public interface InferenceEngine extends AutoCloseable {
+
+    // rows x FeatureVectorizer.NUM_FEATURES row-major features in, positive-class probability per row out
+    float[] predict(float[] features, int rows);
+
+    // Probabilities and per-feature contributions for the same rows, computed in one pass over the model
+    ScoredBatch predictWithContributions(float[] features, int rows);
+
+    // Releases native handles, if any
+    @Override
+    void close();
+}
\ No newline at end of file
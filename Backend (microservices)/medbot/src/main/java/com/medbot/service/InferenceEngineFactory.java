@@ -0,0 +1,39 @@
+package com.medbot.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+@Component
+public class InferenceEngineFactory {
+    private final MeterRegistry meterRegistry;
+
+    @Value("${medbot.inference.engine:xgboost}")  // xgboost (native) or java (TreeEnsembleEngine)
+    private String engineType;
+
+    @Value("${medbot.booster.pool.size:0}")  // 0 = one Booster per core
+    private int poolSize;
+
+    @Value("${medbot.booster.pool.threads-per-booster:1}")  // xgboost nthread per Booster; 0 = library default
+    private int threadsPerBooster;
+
+    @Value("${medbot.booster.pool.borrow-timeout-ms:5000}")
+    private long borrowTimeoutMs;
+
+    public InferenceEngineFactory(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    // modelVersion tags the engine's metrics so engines of different versions can coexist during a swap
+    public InferenceEngine create(String modelVersion, byte[] modelJson) throws Exception {
+        switch (engineType) {
+            case "xgboost":
+                int size = poolSize > 0 ? poolSize : Runtime.getRuntime().availableProcessors();
+                return new XGBoostEngine(modelJson, modelVersion, size, threadsPerBooster, borrowTimeoutMs, meterRegistry);
+            case "java":
+                return new TreeEnsembleEngine(modelJson);
+            default:
+                throw new IllegalArgumentException("Unknown medbot.inference.engine: " + engineType);
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,52 @@
+package com.medbot.service;
+
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// One model version held by the registry, with the engine built from its model file. Reference counted:
+// the registry holds one reference until it retires the model, long-running jobs take a lease for their
+// whole run, and the engine is closed when the last reference is released.
+public final class LoadedModel {
+    private final String version;
+    private final InferenceEngine engine;
+    private final Instant loadedAt;
+    private final AtomicInteger references = new AtomicInteger(1);  // The registry's own reference
+
+    public LoadedModel(String version, InferenceEngine engine) {
+        this.version = version;
+        this.engine = engine;
+        this.loadedAt = Instant.now();
+    }
+
+    public String getVersion() {
+        return version;
+    }
+
+    public InferenceEngine getEngine() {
+        return engine;
+    }
+
+    public Instant getLoadedAt() {
+        return loadedAt;
+    }
+
+    // False once the engine has been closed; the caller must then lease whatever is active now
+    boolean acquire() {
+        while (true) {
+            int current = references.get();
+            if (current == 0) {
+                return false;
+            }
+            if (references.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    // Drops a lease (or the registry's reference); the last one closes the engine
+    public void release() {
+        if (references.decrementAndGet() == 0) {
+            engine.close();
+        }
+    }
+}
\ No newline at end of file
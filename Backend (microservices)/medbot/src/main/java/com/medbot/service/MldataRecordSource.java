@@ -0,0 +1,27 @@
+package com.medbot.service;
+
+import com.medbot.client.MldataClient;
+import com.medbot.dto.HealthRecordPage;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.CompletableFuture;
+
+// health_records via mldata's GET /health/records (Firestore, or the Firestore emulator behind mldata)
+@Component
+public class MldataRecordSource implements RecordSource {
+    private final MldataClient mldataClient;
+
+    public MldataRecordSource(MldataClient mldataClient) {
+        this.mldataClient = mldataClient;
+    }
+
+    @Override
+    public String name() {
+        return "mldata";
+    }
+
+    @Override
+    public CompletableFuture<HealthRecordPage> fetchPage(String pageToken, int pageSize) {
+        return mldataClient.fetchRecordPage(pageToken, pageSize);
+    }
+}
\ No newline at end of file
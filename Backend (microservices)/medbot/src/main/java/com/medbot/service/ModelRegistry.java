@@ -0,0 +1,336 @@
+package com.medbot.service;
+
+import com.medbot.dto.ShadowStats;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+// Versioned models loaded from medbot.models.dir (<version>.json), with the active one behind an
+// atomic reference. Activation loads and warms the candidate before swapping it in. The registry drops
+// its reference to a replaced model after a grace period, which covers single predictions that read
+// active() without a lease; jobs that score with one model for minutes lease it, and the engine closes
+// only when the last lease is released. A candidate can also be shadow-scored on live traffic without
+// affecting responses.
+@Component
+public class ModelRegistry {
+    private static final int NUM_FEATURES = FeatureVectorizer.NUM_FEATURES;
+    private static final Pattern VERSION_PATTERN = Pattern.compile("[A-Za-z0-9._-]+");
+
+    private final InferenceEngineFactory engineFactory;
+    private final PredictionCache cache;
+    private final MeterRegistry meterRegistry;
+
+    private final AtomicReference<LoadedModel> active = new AtomicReference<>();
+    private final AtomicReference<ShadowState> shadow = new AtomicReference<>();
+
+    private final ScheduledExecutorService retirer = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "medbot-model-retirer");
+        t.setDaemon(true);
+        return t;
+    });
+    private final ThreadPoolExecutor shadowExecutor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(1000), r -> {
+                Thread t = new Thread(r, "medbot-model-shadow");
+                t.setDaemon(true);
+                return t;
+            }, new ThreadPoolExecutor.AbortPolicy());  // Rejections are counted as drops in shadowScore
+
+    @Value("${medbot.models.dir:}")  // Empty = only the bundled classpath model.json
+    private String modelsDir;
+
+    @Value("${medbot.models.active:}")  // Version to activate at startup; empty = bundled model
+    private String initialVersion;
+
+    @Value("${medbot.models.bundled-version:bundled}")
+    private String bundledVersion;
+
+    @Value("${medbot.models.warmup-rows:512}")
+    private int warmupRows;
+
+    @Value("${medbot.models.warmup-iterations:20}")
+    private int warmupIterations;
+
+    @Value("${medbot.models.retire-delay-ms:30000}")
+    private long retireDelayMs;
+
+    public ModelRegistry(InferenceEngineFactory engineFactory, PredictionCache cache, MeterRegistry meterRegistry) {
+        this.engineFactory = engineFactory;
+        this.cache = cache;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @PostConstruct
+    public void init() throws Exception {
+        LoadedModel initial = initialVersion.isBlank() ? loadBundled() : load(initialVersion);
+        warmUp(initial.getEngine());
+        active.set(initial);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        stopShadow();
+        shadowExecutor.shutdownNow();
+        retirer.shutdownNow();
+        LoadedModel current = active.getAndSet(null);
+        if (current != null) {
+            current.release();
+        }
+    }
+
+    public LoadedModel active() {
+        return active.get();
+    }
+
+    // The active model, kept open until the caller releases it even if it is swapped out and retired
+    // meanwhile. For work that outlives the retire grace period (cohort runs, risk store refreshes).
+    public LoadedModel lease() {
+        while (true) {
+            LoadedModel model = active.get();
+            if (model == null) {
+                throw new IllegalStateException("No active model");
+            }
+            if (model.acquire()) {
+                return model;
+            }
+            // Fully released between the read and the acquire: it is no longer active, read again
+        }
+    }
+
+    public String shadowVersion() {
+        ShadowState state = shadow.get();
+        return state != null ? state.model.getVersion() : null;
+    }
+
+    // Model files available in medbot.models.dir, by version
+    public List<String> availableVersions() throws IOException {
+        List<String> versions = new ArrayList<>();
+        if (modelsDir.isBlank()) {
+            return versions;
+        }
+        try (Stream<Path> files = Files.list(Paths.get(modelsDir))) {
+            files.map(path -> path.getFileName().toString())
+                    .filter(name -> name.endsWith(".json"))
+                    .map(name -> name.substring(0, name.length() - ".json".length()))
+                    .sorted()
+                    .forEach(versions::add);
+        }
+        return versions;
+    }
+
+    // Load + warm the version, then swap it in; the previous engine is closed after the grace period
+    public synchronized LoadedModel activate(String version) throws Exception {
+        LoadedModel candidate = load(version);
+        try {
+            warmUp(candidate.getEngine());
+        } catch (RuntimeException e) {
+            candidate.release();
+            throw e;
+        }
+        LoadedModel previous = active.getAndSet(candidate);
+        cache.invalidateAll();  // Cached responses belong to the previous model
+        if (previous != null) {
+            retire(previous);
+        }
+        return candidate;
+    }
+
+    public synchronized void startShadow(String version) throws Exception {
+        LoadedModel candidate = load(version);
+        try {
+            warmUp(candidate.getEngine());
+        } catch (RuntimeException e) {
+            candidate.release();
+            throw e;
+        }
+        // Unregister the previous state's timers first: Micrometer would otherwise hand the new state
+        // the same Timer instances, which the previous close() then removes from the registry
+        stopShadow();
+        shadow.set(new ShadowState(candidate, meterRegistry));
+    }
+
+    public synchronized void stopShadow() {
+        ShadowState previous = shadow.getAndSet(null);
+        if (previous != null) {
+            previous.close(meterRegistry);
+            retire(previous.model);
+        }
+    }
+
+    public ShadowStats shadowStats() {
+        ShadowState state = shadow.get();
+        return state != null ? state.snapshot() : null;
+    }
+
+    // Called after the active model scored a batch; re-scores a copy with the shadow model off-thread
+    public void shadowScore(float[] features, int rows, float[] activeProbabilities, long activeNanos) {
+        ShadowState state = shadow.get();
+        if (state == null) {
+            return;
+        }
+        state.activeTimer.record(activeNanos, TimeUnit.NANOSECONDS);
+        float[] featuresCopy = new float[rows * NUM_FEATURES];
+        System.arraycopy(features, 0, featuresCopy, 0, featuresCopy.length);
+        float[] activeCopy = activeProbabilities.clone();
+        if (!state.model.acquire()) {
+            state.dropped.increment();  // Shadow model already retired and closed
+            return;
+        }
+        try {
+            shadowExecutor.execute(() -> {
+                try {
+                    state.score(featuresCopy, rows, activeCopy, activeNanos);
+                } finally {
+                    state.model.release();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            state.model.release();
+            state.dropped.increment();  // Queue full (or shutting down): shadow scoring never slows the caller
+        }
+    }
+
+    private LoadedModel load(String version) throws Exception {
+        if (version == null || !VERSION_PATTERN.matcher(version).matches()) {
+            throw new IllegalArgumentException("Invalid model version: " + version);
+        }
+        if (bundledVersion.equals(version)) {
+            return loadBundled();
+        }
+        if (modelsDir.isBlank()) {
+            throw new IllegalArgumentException("medbot.models.dir is not configured");
+        }
+        Path file = Paths.get(modelsDir, version + ".json");
+        if (!Files.isRegularFile(file)) {
+            throw new IllegalArgumentException("Model version not found: " + version);
+        }
+        return new LoadedModel(version, engineFactory.create(version, Files.readAllBytes(file)));
+    }
+
+    private LoadedModel loadBundled() throws Exception {
+        try (InputStream modelStream = getClass().getResourceAsStream("/model.json")) {
+            if (modelStream == null) {
+                throw new IllegalArgumentException("model.json not found in resources");
+            }
+            return new LoadedModel(bundledVersion, engineFactory.create(bundledVersion, modelStream.readAllBytes()));
+        }
+    }
+
+    // Exercise both scoring paths on synthetic rows so the JIT (and native pools) are hot before traffic
+    private void warmUp(InferenceEngine engine) {
+        if (warmupRows <= 0) {
+            return;
+        }
+        Random random = new Random(42);
+        float[] features = new float[warmupRows * NUM_FEATURES];
+        for (int row = 0; row < warmupRows; row++) {
+            int o = row * NUM_FEATURES;
+            for (int i = 0; i < FeatureVectorizer.NUM_NUMERIC; i++) {
+                features[o + i] = (float) random.nextGaussian();
+            }
+            features[o + 6] = random.nextInt(5);
+            features[o + 7] = 3 + random.nextInt(5);
+            features[o + 8] = random.nextInt(3);
+            features[o + 9] = 1 + random.nextInt(4);
+        }
+        for (int i = 0; i < warmupIterations; i++) {
+            engine.predict(features, warmupRows);
+            engine.predict(features, 1);
+            engine.predictWithContributions(features, Math.min(warmupRows, 64));
+        }
+    }
+
+    private void retire(LoadedModel model) {
+        retirer.schedule(model::release, retireDelayMs, TimeUnit.MILLISECONDS);
+    }
+
+    // Running comparison of the shadow model against the active one
+    private static final class ShadowState {
+        final LoadedModel model;
+        final Timer activeTimer;
+        final Timer shadowTimer;
+        final LongAdder scored = new LongAdder();
+        final LongAdder disagreements = new LongAdder();
+        final LongAdder dropped = new LongAdder();
+        final DoubleAdder absDiffSum = new DoubleAdder();
+        final LongAdder activeNanosSum = new LongAdder();
+        final LongAdder shadowNanosSum = new LongAdder();
+        final LongAdder batches = new LongAdder();
+
+        ShadowState(LoadedModel model, MeterRegistry registry) {
+            this.model = model;
+            this.activeTimer = Timer.builder("medbot.models.shadow.latency")
+                    .tag("role", "active")
+                    .publishPercentiles(0.5, 0.99)
+                    .register(registry);
+            this.shadowTimer = Timer.builder("medbot.models.shadow.latency")
+                    .tag("role", "shadow")
+                    .publishPercentiles(0.5, 0.99)
+                    .register(registry);
+        }
+
+        void score(float[] features, int rows, float[] activeProbabilities, long activeNanos) {
+            long start = System.nanoTime();
+            float[] shadowProbabilities;
+            try {
+                shadowProbabilities = model.getEngine().predict(features, rows);
+            } catch (RuntimeException e) {
+                dropped.increment();
+                return;
+            }
+            long shadowNanos = System.nanoTime() - start;
+            shadowTimer.record(shadowNanos, TimeUnit.NANOSECONDS);
+
+            batches.increment();
+            activeNanosSum.add(activeNanos);
+            shadowNanosSum.add(shadowNanos);
+            for (int row = 0; row < rows; row++) {
+                float a = activeProbabilities[row];
+                float s = shadowProbabilities[row];
+                absDiffSum.add(Math.abs(a - s));
+                if ((a > 0.5f) != (s > 0.5f)) {
+                    disagreements.increment();
+                }
+            }
+            scored.add(rows);
+        }
+
+        ShadowStats snapshot() {
+            long rows = scored.sum();
+            long calls = batches.sum();
+            double activeMicros = calls > 0 ? activeNanosSum.sum() / 1_000.0 / calls : 0.0;
+            double shadowMicros = calls > 0 ? shadowNanosSum.sum() / 1_000.0 / calls : 0.0;
+            return new ShadowStats(model.getVersion(), rows, dropped.sum(), activeMicros, shadowMicros,
+                    shadowMicros - activeMicros,
+                    rows > 0 ? (double) disagreements.sum() / rows : 0.0,
+                    rows > 0 ? absDiffSum.sum() / rows : 0.0);
+        }
+
+        void close(MeterRegistry registry) {
+            registry.remove(activeTimer);
+            registry.remove(shadowTimer);
+        }
+    }
+}
\ No newline at end of file
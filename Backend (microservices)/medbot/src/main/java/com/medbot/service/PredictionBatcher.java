@@ -0,0 +1,168 @@
+package com.medbot.service;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiFunction;
+
+// Coalesces concurrent single-row predictions: rows arriving within the window after the first queued row
+// (or until maxBatch rows are queued) are scored together as one multi-row engine call, and each
+// caller's future is completed with its own row.
+public class PredictionBatcher implements AutoCloseable {
+    private static final int NUM_FEATURES = FeatureVectorizer.NUM_FEATURES;
+
+    private final BiFunction<float[], Integer, ScoredBatch> scorer;
+    private final long windowNanos;
+    private final int maxBatch;
+    private final LinkedBlockingQueue<Pending> queue = new LinkedBlockingQueue<>();
+    private final Thread dispatcher;
+    private final ExecutorService workers;
+    private volatile boolean running = true;
+
+    private final DistributionSummary batchFill;
+    private final Timer queueDelay;
+
+    public PredictionBatcher(BiFunction<float[], Integer, ScoredBatch> scorer, long windowMicros, int maxBatch,
+                             int workerThreads, MeterRegistry registry) {
+        if (maxBatch < 1) {
+            throw new IllegalArgumentException("maxBatch must be at least 1");
+        }
+        this.scorer = scorer;
+        this.windowNanos = TimeUnit.MICROSECONDS.toNanos(windowMicros);
+        this.maxBatch = maxBatch;
+
+        this.batchFill = DistributionSummary.builder("medbot.batching.batch.size")
+                .description("Rows per coalesced engine call")
+                .publishPercentileHistogram()
+                .publishPercentiles(0.5, 0.99)
+                .register(registry);
+        this.queueDelay = Timer.builder("medbot.batching.queue.delay")
+                .description("Time a row waited in the coalescing queue before its batch was dispatched")
+                .publishPercentileHistogram()
+                .publishPercentiles(0.5, 0.99)
+                .register(registry);
+
+        AtomicInteger workerIds = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(workerThreads, r -> {
+            Thread t = new Thread(r, "medbot-batch-worker-" + workerIds.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        this.dispatcher = new Thread(this::dispatchLoop, "medbot-batch-dispatcher");
+        this.dispatcher.setDaemon(true);
+        this.dispatcher.start();
+    }
+
+    // Queues a copy of one feature row; the future completes with that row's single-row result
+    public CompletableFuture<ScoredBatch> submit(float[] features, int offset) {
+        float[] row = new float[NUM_FEATURES];
+        System.arraycopy(features, offset, row, 0, NUM_FEATURES);
+        Pending pending = new Pending(row, System.nanoTime());
+        if (!running) {
+            pending.future.completeExceptionally(new IllegalStateException("Prediction batcher is shut down"));
+            return pending.future;
+        }
+        queue.add(pending);
+        if (!running && queue.remove(pending)) {
+            // close() ran between the check above and the add, so its drain missed this row
+            pending.future.completeExceptionally(new IllegalStateException("Prediction batcher is shut down"));
+        }
+        return pending.future;
+    }
+
+    public int queueDepth() {
+        return queue.size();
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        dispatcher.interrupt();
+        workers.shutdown();
+        List<Pending> leftovers = new ArrayList<>();
+        queue.drainTo(leftovers);
+        failAll(leftovers, new IllegalStateException("Prediction batcher is shut down"));
+    }
+
+    private void dispatchLoop() {
+        while (running) {
+            List<Pending> batch = new ArrayList<>(maxBatch);
+            try {
+                Pending first = queue.take();
+                batch.add(first);
+
+                long deadline = first.enqueuedNanos + windowNanos;
+                while (batch.size() < maxBatch) {
+                    long remaining = deadline - System.nanoTime();
+                    Pending next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : queue.poll();
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                dispatch(batch);
+            } catch (InterruptedException e) {
+                failAll(batch, new IllegalStateException("Prediction batcher is shut down"));
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private void dispatch(List<Pending> batch) {
+        long now = System.nanoTime();
+        for (Pending pending : batch) {
+            queueDelay.record(now - pending.enqueuedNanos, TimeUnit.NANOSECONDS);
+        }
+        batchFill.record(batch.size());
+
+        try {
+            workers.execute(() -> score(batch));
+        } catch (RejectedExecutionException e) {
+            failAll(batch, e);
+        }
+    }
+
+    private void score(List<Pending> batch) {
+        int rows = batch.size();
+        float[] features = new float[rows * NUM_FEATURES];
+        for (int row = 0; row < rows; row++) {
+            System.arraycopy(batch.get(row).features, 0, features, row * NUM_FEATURES, NUM_FEATURES);
+        }
+        try {
+            ScoredBatch scored = scorer.apply(features, rows);
+            for (int row = 0; row < rows; row++) {
+                batch.get(row).future.complete(scored.row(row));
+            }
+        } catch (Exception e) {
+            failAll(batch, e);
+        }
+    }
+
+    private static void failAll(List<Pending> batch, Exception e) {
+        for (Pending pending : batch) {
+            pending.future.completeExceptionally(e);
+        }
+    }
+
+    private static final class Pending {
+        final float[] features;
+        final long enqueuedNanos;
+        final CompletableFuture<ScoredBatch> future = new CompletableFuture<>();
+
+        Pending(float[] features, long enqueuedNanos) {
+            this.features = features;
+            this.enqueuedNanos = enqueuedNanos;
+        }
+    }
+}
\ No newline at end of file
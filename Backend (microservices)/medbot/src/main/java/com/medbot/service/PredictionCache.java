@@ -0,0 +1,118 @@
+package com.medbot.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.medbot.dto.HealthRecord;
+import com.medbot.dto.PredictionResponse;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import java.time.Duration;
+import java.util.Arrays;
+
+// Bounded W-TinyLFU cache of PredictionResponses keyed by the record's model inputs.
+// The key is the raw (null-normalized) inputs rather than the clipped/standardized vector because
+// the explanation text quotes raw values, so two records that clip to the same vector can still
+// produce different responses.
+@Component
+public class PredictionCache {
+    private final MeterRegistry meterRegistry;
+
+    @Value("${medbot.cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${medbot.cache.max-size:100000}")
+    private long maxSize;
+
+    @Value("${medbot.cache.expire-after-write-minutes:60}")
+    private long expireAfterWriteMinutes;
+
+    private Cache<RecordKey, PredictionResponse> predictions;
+    private Cache<String, RecordKey> patientKeys;  // patientId -> key of their last scored record
+
+    public PredictionCache(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @PostConstruct
+    public void init() {
+        predictions = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofMinutes(expireAfterWriteMinutes))
+                .recordStats()
+                .build();
+        patientKeys = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofMinutes(expireAfterWriteMinutes))
+                .build();
+        // cache.gets{result=hit|miss}, cache.evictions, cache.size tagged cache=medbot.predictions
+        CaffeineCacheMetrics.monitor(meterRegistry, predictions, "medbot.predictions");
+    }
+
+    public PredictionResponse get(HealthRecord record) {
+        return enabled ? predictions.getIfPresent(RecordKey.of(record)) : null;
+    }
+
+    public void put(HealthRecord record, PredictionResponse response) {
+        if (enabled) {
+            predictions.put(RecordKey.of(record), response);
+        }
+    }
+
+    // Remembers which entry belongs to a patient so it can be dropped when their data changes
+    public void bindPatient(String patientId, HealthRecord record) {
+        if (enabled && patientId != null && record != null) {
+            patientKeys.put(patientId, RecordKey.of(record));
+        }
+    }
+
+    public void invalidatePatient(String patientId) {
+        RecordKey key = patientKeys.asMap().remove(patientId);
+        if (key != null) {
+            predictions.invalidate(key);
+        }
+    }
+
+    public void invalidateAll() {
+        predictions.invalidateAll();
+        patientKeys.invalidateAll();
+    }
+
+    // Ten model inputs; numerics as doubles and categoricals widened, with null mapped to NaN
+    static final class RecordKey {
+        private final double[] values;
+        private final int hash;
+
+        private RecordKey(double[] values) {
+            this.values = values;
+            this.hash = Arrays.hashCode(values);
+        }
+
+        static RecordKey of(HealthRecord record) {
+            return new RecordKey(new double[]{
+                    orNaN(record.getAge()), orNaN(record.getThalach()), orNaN(record.getOldpeak()),
+                    orNaN(record.getTrestbps()), orNaN(record.getBmi()), orNaN(record.getChol()),
+                    orNaN(record.getCa()), orNaN(record.getThal()), orNaN(record.getRestecg()), orNaN(record.getCp())
+            });
+        }
+
+        private static double orNaN(Number value) {
+            return value != null ? value.doubleValue() : Double.NaN;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            return Arrays.equals(values, ((RecordKey) o).values);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
\ No newline at end of file
@@ -1,141 +1,355 @@
 package com.medbot.service;
 
+import com.medbot.dto.FeatureContribution;
 import com.medbot.dto.HealthRecord;
 import com.medbot.dto.PredictionResponse;
-import ml.dmlc.xgboost4j.java.Booster;
-import ml.dmlc.xgboost4j.java.DMatrix;
-import ml.dmlc.xgboost4j.java.XGBoost;
+import com.medbot.dto.RiskCurve;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import jakarta.annotation.PostConstruct;
-import java.io.InputStream;
-import java.util.HashMap;
-import java.util.Map;
+import jakarta.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 @Service
 public class PredictionService {
-    private Booster model;
-    private double[] scalerMeans;
-    private double[] scalerStds;
+    private static final int NUM_FEATURES = FeatureVectorizer.NUM_FEATURES;
+
+    // Per-thread feature buffer for single predictions; DMatrix copies it into native memory
+    private static final ThreadLocal<float[]> ROW_BUFFER = ThreadLocal.withInitial(() -> new float[NUM_FEATURES]);
+
+    private final ModelRegistry modelRegistry;
+    private final MeterRegistry meterRegistry;
+    private final PredictionCache cache;
+    private final DriftMonitor driftMonitor;
+    private PredictionBatcher batcher;  // Null unless medbot.batching.enabled
+
+    @Value("${medbot.explanation.mode:rules}")  // rules (threshold text) or contributions (model drivers)
+    private String explanationMode;
+
+    @Value("${medbot.explanation.top-k:3}")
+    private int explanationTopK;
+
+    @Value("${medbot.batching.enabled:false}")
+    private boolean batchingEnabled;
+
+    @Value("${medbot.batching.window-micros:2000}")  // How long the first queued row waits for company
+    private long batchingWindowMicros;
+
+    @Value("${medbot.batching.max-batch:64}")  // Dispatch early once this many rows are queued
+    private int batchingMaxBatch;
+
+    @Value("${medbot.batching.workers:0}")  // Concurrent batch dispatches; 0 = one per core
+    private int batchingWorkers;
+
+    @Value("${medbot.batching.timeout-ms:10000}")  // Upper bound on a request's wait for its batched row
+    private long batchingTimeoutMs;
+
+    public PredictionService(ModelRegistry modelRegistry, MeterRegistry meterRegistry,
+                             PredictionCache cache, DriftMonitor driftMonitor) {
+        this.modelRegistry = modelRegistry;
+        this.meterRegistry = meterRegistry;
+        this.cache = cache;
+        this.driftMonitor = driftMonitor;
+    }
 
     @PostConstruct
-    public void init() throws Exception {
-        try (InputStream modelStream = getClass().getResourceAsStream("/model.json")) {
-            if (modelStream == null) {
-                throw new IllegalArgumentException("model.json not found in resources");
-            }
-            this.model = XGBoost.loadModel(modelStream);
+    public void init() {
+        if (!"rules".equals(explanationMode) && !"contributions".equals(explanationMode)) {
+            throw new IllegalArgumentException("Unknown medbot.explanation.mode: " + explanationMode);
         }
 
-        scalerMeans = new double[]{
-                53.561934411571166, 133.42083179822853, 3.290263101026517, 145.87632758466876,
-                27.59021092690132, 315.6976306565412
-        };
-        scalerStds = new double[]{
-                12.522074324666445, 38.252686702130454, 1.6037072754870243, 29.156524438809672,
-                6.605567052183025, 92.58089559773687
-        };
+        if (batchingEnabled) {
+            int workers = batchingWorkers > 0 ? batchingWorkers : Runtime.getRuntime().availableProcessors();
+            this.batcher = new PredictionBatcher(this::score, batchingWindowMicros, batchingMaxBatch, workers,
+                    meterRegistry);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (batcher != null) {
+            batcher.close();
+        }
     }
 
     public PredictionResponse predict(HealthRecord record) {
         if (record == null) {
             throw new IllegalArgumentException("No health record provided");
         }
+        PredictionResponse cached = cachedResponse(record);
+        if (cached != null) {
+            return cached;
+        }
+
+        float[] features = ROW_BUFFER.get();
+        FeatureVectorizer.vectorize(record, features, 0);
+        return scoreAndCache(record, features, 0);
+    }
+
+    // For callers that already hold the record's engine-ready vector (the feature store)
+    public PredictionResponse predict(HealthRecord record, float[] features, int offset) {
+        if (record == null) {
+            throw new IllegalArgumentException("No health record provided");
+        }
+        PredictionResponse cached = cachedResponse(record);
+        if (cached != null) {
+            return cached;
+        }
+        return scoreAndCache(record, features, offset);
+    }
+
+    private PredictionResponse cachedResponse(HealthRecord record) {
+        PredictionResponse cached = cache.get(record);
+        if (!isCurrent(cached)) {
+            return null;
+        }
+        driftMonitor.record(record, cached.getProbability());
+        return cached;
+    }
+
+    private PredictionResponse scoreAndCache(HealthRecord record, float[] features, int offset) {
+        ScoredBatch scored;
+        if (batcher != null) {
+            scored = batcher.submit(features, offset).orTimeout(batchingTimeoutMs, TimeUnit.MILLISECONDS).join();
+        } else if (offset == 0) {
+            scored = score(features, 1);
+        } else {
+            float[] row = ROW_BUFFER.get();
+            System.arraycopy(features, offset, row, 0, NUM_FEATURES);
+            scored = score(row, 1);
+        }
+
+        PredictionResponse response = toResponse(record, scored, 0);
+        cache.put(record, response);
+        driftMonitor.record(record, response.getProbability());
+        return response;
+    }
+
+    // Scores all cache misses with one engine call (a single N-row DMatrix for the native engine)
+    public List<PredictionResponse> predictBatch(List<HealthRecord> records) {
+        if (records == null || records.isEmpty()) {
+            throw new IllegalArgumentException("No health records provided");
+        }
+
+        int size = records.size();
+        PredictionResponse[] responses = new PredictionResponse[size];
+        int[] missIndex = new int[size];  // Positions still to score, in engine row order
+        int rows = 0;
+        for (int i = 0; i < size; i++) {
+            HealthRecord record = records.get(i);
+            if (record == null) {
+                throw new IllegalArgumentException("No health record provided at index " + i);
+            }
+            PredictionResponse cached = cache.get(record);
+            responses[i] = isCurrent(cached) ? cached : null;
+            if (responses[i] == null) {
+                missIndex[rows++] = i;
+            }
+        }
 
-        Map<String, Object> data = new HashMap<>();
-        data.put("age", record.getAge() != null ? record.getAge() : scalerMeans[0]);
-        data.put("thalach", record.getThalach() != null ? record.getThalach() : scalerMeans[1]);
-        data.put("oldpeak", record.getOldpeak() != null ? record.getOldpeak() : scalerMeans[2]);
-        data.put("trestbps", record.getTrestbps() != null ? record.getTrestbps() : scalerMeans[3]);
-        data.put("bmi", record.getBmi() != null ? record.getBmi() : scalerMeans[4]);
-        data.put("chol", record.getChol() != null ? record.getChol() : scalerMeans[5]);
+        if (rows > 0) {
+            float[] features = new float[rows * NUM_FEATURES];
+            for (int row = 0; row < rows; row++) {
+                FeatureVectorizer.vectorize(records.get(missIndex[row]), features, row * NUM_FEATURES);
+            }
+
+            ScoredBatch scored = score(features, rows);
+            for (int row = 0; row < rows; row++) {
+                HealthRecord record = records.get(missIndex[row]);
+                PredictionResponse response = toResponse(record, scored, row);
+                cache.put(record, response);
+                responses[missIndex[row]] = response;
+            }
+        }
+        for (int i = 0; i < size; i++) {
+            driftMonitor.record(records.get(i), responses[i].getProbability());
+        }
+        return Arrays.asList(responses);
+    }
+
+    // Probabilities only, with no cache, explanation text or drift sampling: all records in one engine call.
+    // For offline series such as a patient's history rather than live predictions.
+    public ScoredBatch scoreRecords(List<HealthRecord> records) {
+        return scoreRecords(modelRegistry.active(), records);
+    }
+
+    // Same, with a model the caller pinned: multi-chunk jobs score every chunk with one version even if the
+    // registry swaps models part way through
+    public ScoredBatch scoreRecords(LoadedModel model, List<HealthRecord> records) {
+        int rows = records.size();
+        float[] features = new float[rows * NUM_FEATURES];
+        for (int row = 0; row < rows; row++) {
+            FeatureVectorizer.vectorize(records.get(row), features, row * NUM_FEATURES);
+        }
+        return new ScoredBatch(model.getEngine().predict(features, rows), null, model.getVersion());
+    }
 
-        double[][] clips = {{35.0, 70.0}, {90.0, 180.0}, {0.0, 4.0}, {110.0, 160.0}, {20.0, 35.0}, {150.0, 300.0}};
-        String[] numNames = {"age", "thalach", "oldpeak", "trestbps", "bmi", "chol"};
-        for (int i = 0; i < numNames.length; i++) {
-            double val = (Double) data.get(numNames[i]);
-            val = Math.max(clips[i][0], Math.min(clips[i][1], val));
-            data.put(numNames[i], val);
+    // Risk at each value of one feature with the rest of the record fixed: the record is vectorized once
+    // and every variant becomes a row of a single engine call
+    public RiskCurve riskCurve(HealthRecord base, int featureIndex, double[] values) {
+        int rows = values.length;
+        float[] features = new float[rows * NUM_FEATURES];
+        FeatureVectorizer.vectorize(base, features, 0);
+        for (int row = 1; row < rows; row++) {
+            System.arraycopy(features, 0, features, row * NUM_FEATURES, NUM_FEATURES);
+        }
+        for (int row = 0; row < rows; row++) {
+            features[row * NUM_FEATURES + featureIndex] = FeatureVectorizer.encode(featureIndex, values[row]);
         }
 
-        float[] features = new float[10];
-        for (int i = 0; i < 6; i++) {
-            double val = (Double) data.get(numNames[i]);
-            features[i] = (float) ((val - scalerMeans[i]) / scalerStds[i]);
+        LoadedModel model = modelRegistry.active();
+        float[] probabilities = model.getEngine().predict(features, rows);
+        double[] risk = new double[rows];
+        for (int row = 0; row < rows; row++) {
+            risk[row] = probabilities[row];
         }
-        features[6] = record.getCa() != null ? record.getCa().floatValue() : 0f;
-        features[7] = record.getThal() != null ? record.getThal().floatValue() : 3f;
-        features[8] = record.getRestecg() != null ? record.getRestecg().floatValue() : 0f;
-        features[9] = record.getCp() != null ? record.getCp().floatValue() : 2f;
+        return new RiskCurve(FeatureVectorizer.FEATURE_NAMES[featureIndex], values, risk, model.getVersion());
+    }
+
+    // Runs rows x NUM_FEATURES row-major features through the active model in one call; in
+    // contributions mode the same call also yields the per-feature contributions
+    private ScoredBatch score(float[] features, int rows) {
+        LoadedModel model = modelRegistry.active();
+        long start = System.nanoTime();
+        ScoredBatch scored = isContributionsMode()
+                ? model.getEngine().predictWithContributions(features, rows)
+                : new ScoredBatch(model.getEngine().predict(features, rows), null);
+        modelRegistry.shadowScore(features, rows, scored.probabilities(), System.nanoTime() - start);
+        return scored.withModelVersion(model.getVersion());
+    }
 
-        try {
-            DMatrix dmatrix = new DMatrix(features, 1, features.length, Float.NaN);
-            float[][] prediction = model.predict(dmatrix);
-            double proba = prediction[0][0];  // Binary: [0][0] for positive class
-            int risk = (proba > 0.5) ? 1 : 0;
+    // Entries scored by a model that has since been swapped out are treated as misses
+    private boolean isCurrent(PredictionResponse cached) {
+        return cached != null && modelRegistry.active().getVersion().equals(cached.getModelVersion());
+    }
+
+    private boolean isContributionsMode() {
+        return "contributions".equals(explanationMode);
+    }
 
-            String explanation = generateExplanation(risk, record);
+    private PredictionResponse toResponse(HealthRecord record, ScoredBatch scored, int row) {
+        double proba = scored.probability(row);
+        int risk = (proba > 0.5) ? 1 : 0;
 
-            return new PredictionResponse(risk, proba, explanation);
-        } catch (Exception e) {
-            throw new RuntimeException("Prediction failed: " + e.getMessage(), e);
+        PredictionResponse response;
+        if (scored.hasContributions()) {
+            List<FeatureContribution> drivers = topDrivers(record, scored, row);
+            response = new PredictionResponse(risk, proba, explainDrivers(risk, drivers));
+            response.setDrivers(drivers);
+        } else {
+            response = new PredictionResponse(risk, proba, generateExplanation(risk, record));
         }
+        response.setModelVersion(scored.getModelVersion());
+        return response;
     }
 
-    private String generateExplanation(int risk, HealthRecord record) {
+    // The k features with the largest absolute contribution, largest first
+    private List<FeatureContribution> topDrivers(HealthRecord record, ScoredBatch scored, int row) {
+        int k = Math.min(explanationTopK, NUM_FEATURES);
+        if (k <= 0) {
+            return new ArrayList<>();
+        }
+        int[] top = new int[k];
+        int found = 0;
+        for (int i = 0; i < NUM_FEATURES; i++) {
+            float magnitude = Math.abs(scored.contribution(row, i));
+            if (magnitude == 0f) {
+                continue;
+            }
+            // Insertion into the small sorted top array
+            int pos = Math.min(found, k - 1);
+            if (found == k && magnitude <= Math.abs(scored.contribution(row, top[pos]))) {
+                continue;
+            }
+            while (pos > 0 && magnitude > Math.abs(scored.contribution(row, top[pos - 1]))) {
+                top[pos] = top[pos - 1];
+                pos--;
+            }
+            top[pos] = i;
+            if (found < k) {
+                found++;
+            }
+        }
+
+        List<FeatureContribution> drivers = new ArrayList<>(found);
+        for (int j = 0; j < found; j++) {
+            int i = top[j];
+            drivers.add(new FeatureContribution(FeatureVectorizer.FEATURE_NAMES[i],
+                    FeatureVectorizer.rawValue(record, i), (double) scored.contribution(row, i)));
+        }
+        return drivers;
+    }
+
+    private String explainDrivers(int risk, List<FeatureContribution> drivers) {
         StringBuilder sb = new StringBuilder(risk == 1 ? "High" : "Low");
         sb.append(" risk of heart disease. Key factors: ");
+        if (drivers.isEmpty()) {
+            sb.append(risk == 1 ? "General health indicators" : "Overall healthy profile");
+        }
+        for (int j = 0; j < drivers.size(); j++) {
+            FeatureContribution driver = drivers.get(j);
+            if (j > 0) {
+                sb.append(", ");
+            }
+            sb.append(driver.getFeature());
+            if (driver.getValue() != null) {
+                sb.append(" (").append(driver.getValue()).append(')');
+            }
+            sb.append(driver.getContribution() > 0 ? " raises risk" : " lowers risk");
+        }
+        return sb.append('.').toString();
+    }
 
+    String generateExplanation(int risk, HealthRecord record) {
+        StringBuilder sb = new StringBuilder(risk == 1 ? "High" : "Low");
+        sb.append(" risk of heart disease. Key factors: ");
+
+        List<String> factors = new ArrayList<>(6);
         if (risk == 1) {
             // High risk: Highlight 2-3 top risks from data
-            String[] risks = new String[0];
             if (record.getAge() != null && record.getAge() > 60) {
-                risks = append(risks, "Advanced age (" + record.getAge() + ")");
+                factors.add("Advanced age (" + record.getAge() + ")");
             }
             if (record.getOldpeak() != null && record.getOldpeak() > 2.0) {
-                risks = append(risks, "Elevated ST depression (" + record.getOldpeak() + ")");
+                factors.add("Elevated ST depression (" + record.getOldpeak() + ")");
             }
             if (record.getThalach() != null && record.getThalach() < 120) {
-                risks = append(risks, "Low max heart rate (" + record.getThalach() + " bpm)");
+                factors.add("Low max heart rate (" + record.getThalach() + " bpm)");
             }
             if (record.getTrestbps() != null && record.getTrestbps() > 160) {
-                risks = append(risks, "High resting BP (" + record.getTrestbps() + " mmHg)");
+                factors.add("High resting BP (" + record.getTrestbps() + " mmHg)");
             }
             if (record.getChol() != null && record.getChol() > 300) {
-                risks = append(risks, "High cholesterol (" + record.getChol() + " mg/dl)");
+                factors.add("High cholesterol (" + record.getChol() + " mg/dl)");
             }
             if (record.getCa() != null && record.getCa() > 1) {
-                risks = append(risks, record.getCa() + " major vessels colored");
+                factors.add(record.getCa() + " major vessels colored");
             }
-            sb.append(String.join(", ", risks.length > 0 ? risks : new String[]{"General health indicators"}));
+            sb.append(factors.isEmpty() ? "General health indicators" : String.join(", ", factors));
         } else {
             // Low risk: Highlight positives
-            String[] positives = new String[0];
             if (record.getThalach() != null && record.getThalach() > 150) {
-                positives = append(positives, "Good max heart rate (" + record.getThalach() + " bpm)");
+                factors.add("Good max heart rate (" + record.getThalach() + " bpm)");
             }
             if (record.getOldpeak() != null && record.getOldpeak() < 1.0) {
-                positives = append(positives, "Minimal ST depression (" + record.getOldpeak() + ")");
+                factors.add("Minimal ST depression (" + record.getOldpeak() + ")");
             }
             if (record.getBmi() != null && record.getBmi() < 25) {
-                positives = append(positives, "Healthy BMI (" + record.getBmi() + ")");
+                factors.add("Healthy BMI (" + record.getBmi() + ")");
             }
             if (record.getChol() != null && record.getChol() < 200) {
-                positives = append(positives, "Low cholesterol (" + record.getChol() + " mg/dl)");
+                factors.add("Low cholesterol (" + record.getChol() + " mg/dl)");
             }
             if (record.getCa() != null && record.getCa() == 0) {
-                positives = append(positives, "No major vessels affected");
+                factors.add("No major vessels affected");
             }
-            sb.append(String.join(", ", positives.length > 0 ? positives : new String[]{"Overall healthy profile"}));
+            sb.append(factors.isEmpty() ? "Overall healthy profile" : String.join(", ", factors));
         }
-        return sb.toString() + ".";
-    }
-
-    // Helper to append to array (Java doesn't have dynamic arrays easily)
-    private String[] append(String[] arr, String item) {
-        String[] newArr = new String[arr.length + 1];
-        System.arraycopy(arr, 0, newArr, 0, arr.length);
-        newArr[arr.length] = item;
-        return newArr;
+        return sb.append('.').toString();
     }
 }
\ No newline at end of file
@@ -0,0 +1,13 @@
+package com.medbot.service;
+
+import com.medbot.dto.HealthRecordPage;
+
+import java.util.concurrent.CompletableFuture;
+
+// Paged scan over every stored health record, for population-wide jobs
+public interface RecordSource {
+    String name();
+
+    // pageToken null = first page; the returned page's nextPageToken is null on the last page
+    CompletableFuture<HealthRecordPage> fetchPage(String pageToken, int pageSize);
+}
\ No newline at end of file
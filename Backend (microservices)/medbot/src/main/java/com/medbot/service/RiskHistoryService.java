@@ -0,0 +1,85 @@
+package com.medbot.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.medbot.client.MldataClient;
+import com.medbot.dto.HealthRecord;
+import com.medbot.dto.HealthRecordPage;
+import com.medbot.dto.RecordTimestamp;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+// A patient's risk over time: history pages are fetched from mldata (the next page is requested while
+// the current one is scored), each page is scored with one engine call, and points are written to the
+// response as they are produced instead of building the whole series in memory.
+@Service
+public class RiskHistoryService {
+    private final MldataClient mldataClient;
+    private final PredictionService predictionService;
+    private final ObjectMapper objectMapper;
+
+    @Value("${medbot.history.page-size:1000}")
+    private int pageSize;
+
+    public RiskHistoryService(MldataClient mldataClient, PredictionService predictionService,
+                              ObjectMapper objectMapper) {
+        this.mldataClient = mldataClient;
+        this.predictionService = predictionService;
+        this.objectMapper = objectMapper;
+    }
+
+    public CompletableFuture<HealthRecordPage> firstPage(String patientId) {
+        return mldataClient.fetchHistoryPage(patientId, null, pageSize);
+    }
+
+    // {"patientId": ..., "points": [{"timestamp", "probability", "risk"}, ...], "count": n, "modelVersion": ...}
+    public void writeHistory(String patientId, HealthRecordPage firstPage, OutputStream out) throws IOException {
+        try (JsonGenerator json = objectMapper.getFactory().createGenerator(out)) {
+            json.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);  // The servlet container owns the stream
+            json.writeStartObject();
+            json.writeStringField("patientId", patientId);
+            json.writeArrayFieldStart("points");
+
+            long count = 0;
+            String modelVersion = null;
+            HealthRecordPage page = firstPage;
+            while (page != null) {
+                CompletableFuture<HealthRecordPage> next = page.getNextPageToken() != null
+                        ? mldataClient.fetchHistoryPage(patientId, page.getNextPageToken(), pageSize)
+                        : null;
+
+                List<HealthRecord> records = page.getRecords();
+                if (records != null && !records.isEmpty()) {
+                    ScoredBatch scored = predictionService.scoreRecords(records);
+                    modelVersion = scored.getModelVersion();
+                    for (int row = 0; row < records.size(); row++) {
+                        RecordTimestamp timestamp = records.get(row).getTimestamp();
+                        float probability = scored.probability(row);
+                        json.writeStartObject();
+                        if (timestamp != null) {
+                            json.writeStringField("timestamp", timestamp.toString());
+                        } else {
+                            json.writeNullField("timestamp");
+                        }
+                        json.writeNumberField("probability", probability);
+                        json.writeNumberField("risk", probability > 0.5f ? 1 : 0);
+                        json.writeEndObject();
+                    }
+                    count += records.size();
+                    json.flush();  // Push this page's points to the client before waiting on the next page
+                }
+                page = next != null ? next.join() : null;
+            }
+
+            json.writeEndArray();
+            json.writeNumberField("count", count);
+            json.writeStringField("modelVersion", modelVersion);
+            json.writeEndObject();
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,189 @@
+package com.medbot.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.medbot.client.MldataClient;
+import com.medbot.dto.HealthRecord;
+import com.medbot.dto.HealthRecordPage;
+import com.medbot.dto.RecordTimestamp;
+import com.medbot.dto.RiskScore;
+import com.medbot.dto.RiskStoreSnapshot;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Materialized latest risk per patient for dashboards, read straight from memory. A scheduled refresh
+// pulls only records written since the watermark, re-scores the users they belong to in batched engine
+// calls, and snapshots the store to a local file so a restart starts warm. A model swap invalidates
+// the watermark so the next refresh re-scores everyone with the new model.
+@Component
+public class RiskScoreStore {
+    private final MldataClient mldataClient;
+    private final PredictionService predictionService;
+    private final ModelRegistry modelRegistry;
+    private final ObjectMapper objectMapper;
+
+    private final ConcurrentHashMap<String, RiskScore> scores = new ConcurrentHashMap<>();
+    private volatile RecordTimestamp watermark;  // Newest record timestamp already scored; null = never refreshed
+    private volatile String modelVersion;  // Model that produced the stored scores
+
+    @Value("${medbot.risk-store.page-size:1000}")
+    private int pageSize;
+
+    @Value("${medbot.risk-store.chunk-rows:4096}")  // Rows per engine call
+    private int chunkRows;
+
+    @Value("${medbot.risk-store.overlap-seconds:60}")  // Re-read this much before the watermark; re-scoring is idempotent
+    private long overlapSeconds;
+
+    @Value("${medbot.risk-store.snapshot-file:risk-store-snapshot.json}")  // Empty = no snapshot
+    private String snapshotFile;
+
+    public RiskScoreStore(MldataClient mldataClient, PredictionService predictionService,
+                          ModelRegistry modelRegistry, ObjectMapper objectMapper) {
+        this.mldataClient = mldataClient;
+        this.predictionService = predictionService;
+        this.modelRegistry = modelRegistry;
+        this.objectMapper = objectMapper;
+    }
+
+    @PostConstruct
+    public void init() {
+        if (snapshotFile.isBlank() || !Files.isRegularFile(Paths.get(snapshotFile))) {
+            return;
+        }
+        try {
+            RiskStoreSnapshot snapshot = objectMapper.readValue(Paths.get(snapshotFile).toFile(), RiskStoreSnapshot.class);
+            if (snapshot.getScores() != null) {
+                for (RiskScore score : snapshot.getScores()) {
+                    scores.put(score.getPatientId(), score);
+                }
+            }
+            watermark = snapshot.getWatermark();
+            modelVersion = snapshot.getModelVersion();
+        } catch (IOException e) {
+            System.err.println("Ignoring unreadable risk store snapshot " + snapshotFile + ": " + e.getMessage());
+        }
+    }
+
+    public RiskScore get(String patientId) {
+        return scores.get(patientId);
+    }
+
+    public int size() {
+        return scores.size();
+    }
+
+    public RecordTimestamp watermark() {
+        return watermark;
+    }
+
+    @Scheduled(cron = "${medbot.risk-store.cron:0 0 2 * * *}", zone = "UTC")
+    public void scheduledRefresh() {
+        try {
+            refresh();
+        } catch (Exception e) {
+            System.err.println("Risk store refresh failed: " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+
+    // Returns the number of patients re-scored
+    public synchronized int refresh() throws IOException {
+        // One model for the whole refresh: scoring chunks against whatever is active at the time would mix
+        // versions after a mid-refresh swap while the store claimed the last one, so no full rescore follows.
+        // Leased, so a swap during a long refresh cannot close it underneath the remaining chunks.
+        LoadedModel model = modelRegistry.lease();
+        try {
+            return refresh(model);
+        } finally {
+            model.release();
+        }
+    }
+
+    private int refresh(LoadedModel model) throws IOException {
+        boolean full = watermark == null || !model.getVersion().equals(modelVersion);
+        RecordTimestamp since = full
+                ? new RecordTimestamp(0, 0)
+                : new RecordTimestamp(Math.max(0, watermark.getSeconds() - overlapSeconds), watermark.getNanos());
+
+        // Latest new record per user; the next page is requested before the current one is folded
+        Map<String, HealthRecord> changed = new HashMap<>();
+        RecordTimestamp newest = full ? null : watermark;
+        CompletableFuture<HealthRecordPage> pending = mldataClient.fetchChangesPage(since, null, pageSize);
+        while (pending != null) {
+            HealthRecordPage page = pending.join();
+            pending = page.getNextPageToken() != null
+                    ? mldataClient.fetchChangesPage(since, page.getNextPageToken(), pageSize)
+                    : null;
+            if (page.getRecords() == null) {
+                continue;
+            }
+            for (HealthRecord record : page.getRecords()) {
+                if (record == null || record.getUserId() == null) {
+                    continue;
+                }
+                changed.merge(record.getUserId(), record, CohortScoringJob::newer);
+                RecordTimestamp timestamp = record.getTimestamp();
+                if (timestamp != null && (newest == null || timestamp.compareTo(newest) > 0)) {
+                    newest = timestamp;
+                }
+            }
+        }
+
+        List<String> patientIds = new ArrayList<>(changed.size());
+        List<HealthRecord> records = new ArrayList<>(changed.size());
+        for (Map.Entry<String, HealthRecord> entry : changed.entrySet()) {
+            RiskScore existing = full ? null : scores.get(entry.getKey());
+            RecordTimestamp timestamp = entry.getValue().getTimestamp();
+            if (existing != null && existing.getRecordTime() != null && timestamp != null
+                    && timestamp.compareTo(existing.getRecordTime()) <= 0) {
+                continue;  // Overlap window re-read a record that is already scored
+            }
+            patientIds.add(entry.getKey());
+            records.add(entry.getValue());
+        }
+
+        String scoredAt = Instant.now().toString();
+        for (int from = 0; from < records.size(); from += chunkRows) {
+            int to = Math.min(records.size(), from + chunkRows);
+            ScoredBatch scored = predictionService.scoreRecords(model, records.subList(from, to));
+            for (int row = 0; row < to - from; row++) {
+                float probability = scored.probability(row);
+                String patientId = patientIds.get(from + row);
+                scores.put(patientId, new RiskScore(patientId, probability, probability > 0.5f ? 1 : 0,
+                        records.get(from + row).getTimestamp(), model.getVersion(), scoredAt));
+            }
+        }
+
+        watermark = newest != null ? newest : since;
+        modelVersion = model.getVersion();
+        snapshot();
+        return records.size();
+    }
+
+    // Written to a temp file and moved into place, so a crash mid-write never leaves a torn snapshot
+    private void snapshot() throws IOException {
+        if (snapshotFile.isBlank()) {
+            return;
+        }
+        Path target = Paths.get(snapshotFile).toAbsolutePath();
+        Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+        objectMapper.writeValue(temp.toFile(),
+                new RiskStoreSnapshot(watermark, modelVersion, new ArrayList<>(scores.values())));
+        Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
\ No newline at end of file
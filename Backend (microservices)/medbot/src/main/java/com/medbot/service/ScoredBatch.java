@@ -0,0 +1,66 @@
+package com.medbot.service;
+
+// Engine output for a batch of rows: probabilities, plus per-feature contributions when they were requested
+public final class ScoredBatch {
+    // Contribution row layout (xgboost pred_contribs): one column per feature, then the bias
+    public static final int CONTRIB_STRIDE = FeatureVectorizer.NUM_FEATURES + 1;
+    public static final int BIAS = FeatureVectorizer.NUM_FEATURES;
+
+    private final float[] probabilities;
+    private final float[] contributions;  // rows x CONTRIB_STRIDE in margin (log-odds) space; null when not computed
+    private final String modelVersion;    // Registry version that produced the rows; null straight out of an engine
+
+    public ScoredBatch(float[] probabilities, float[] contributions) {
+        this(probabilities, contributions, null);
+    }
+
+    public ScoredBatch(float[] probabilities, float[] contributions, String modelVersion) {
+        this.probabilities = probabilities;
+        this.contributions = contributions;
+        this.modelVersion = modelVersion;
+    }
+
+    public ScoredBatch withModelVersion(String version) {
+        return new ScoredBatch(probabilities, contributions, version);
+    }
+
+    public String getModelVersion() {
+        return modelVersion;
+    }
+
+    public int rows() {
+        return probabilities.length;
+    }
+
+    public float probability(int row) {
+        return probabilities[row];
+    }
+
+    float[] probabilities() {
+        return probabilities;
+    }
+
+    public boolean hasContributions() {
+        return contributions != null;
+    }
+
+    public float contribution(int row, int column) {
+        return contributions[row * CONTRIB_STRIDE + column];
+    }
+
+    // Copy of a single row, so each micro-batch caller holds only its own result
+    public ScoredBatch row(int row) {
+        float[] rowContributions = null;
+        if (contributions != null) {
+            rowContributions = new float[CONTRIB_STRIDE];
+            System.arraycopy(contributions, row * CONTRIB_STRIDE, rowContributions, 0, CONTRIB_STRIDE);
+        }
+        return new ScoredBatch(new float[]{probabilities[row]}, rowContributions, modelVersion);
+    }
+
+    // Same formulation as xgboost's common::Sigmoid
+    static float sigmoid(float x) {
+        float denom = (float) Math.exp(-x) + 1.0f + 1e-16f;
+        return 1.0f / denom;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,215 @@
+package com.medbot.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+
+// Pure-Java evaluator for an XGBoost JSON model (gbtree or dart, numerical splits only).
+// All trees are flattened into shared primitive arrays so a prediction is a tight loop with no
+// JNI crossing and no allocation beyond the output array.
+public class TreeEnsembleEngine implements InferenceEngine {
+    private static final int NUM_FEATURES = FeatureVectorizer.NUM_FEATURES;
+    private static final int LEAF = -1;
+
+    // Node arrays, indexed by global node id (tree offset + local node id)
+    private final int[] splitFeature;
+    private final float[] threshold;  // Split condition for inner nodes, leaf value for leaves
+    private final int[] leftChild;    // Global id, or LEAF
+    private final int[] rightChild;
+    private final boolean[] defaultLeft;
+    private final float[] nodeMean;   // Cover-weighted mean leaf value below each node (for contributions)
+
+    // Per-tree arrays
+    private final int[] treeRoot;
+    private final float[] treeWeight;  // 1 for gbtree, weight_drop for dart
+
+    private final float baseMargin;
+    private final boolean logistic;
+
+    public TreeEnsembleEngine(byte[] modelJson) throws IOException {
+        JsonNode learner = new ObjectMapper().readTree(modelJson).path("learner");
+        if (learner.isMissingNode()) {
+            throw new IllegalArgumentException("Not an XGBoost JSON model: missing 'learner'");
+        }
+
+        String objective = learner.path("objective").path("name").asText();
+        switch (objective) {
+            case "binary:logistic":
+            case "reg:logistic":
+                logistic = true;
+                break;
+            case "binary:logitraw":
+            case "reg:squarederror":
+                logistic = false;
+                break;
+            default:
+                throw new IllegalArgumentException("Unsupported objective: " + objective);
+        }
+
+        JsonNode modelParam = learner.path("learner_model_param");
+        if (modelParam.path("num_class").asInt(0) > 1 || modelParam.path("num_target").asInt(1) > 1) {
+            throw new IllegalArgumentException("Only single-output models are supported");
+        }
+        if (modelParam.path("num_feature").asInt(0) > NUM_FEATURES) {
+            throw new IllegalArgumentException("Model expects " + modelParam.path("num_feature").asInt()
+                    + " features, vectorizer produces " + NUM_FEATURES);
+        }
+        float baseScore = parseBaseScore(modelParam.path("base_score").asText("0.5"));
+        baseMargin = logistic ? (float) -Math.log(1.0 / baseScore - 1.0) : baseScore;
+
+        JsonNode booster = learner.path("gradient_booster");
+        String boosterName = booster.path("name").asText();
+        JsonNode model;
+        JsonNode weightDrop = null;
+        if ("gbtree".equals(boosterName)) {
+            model = booster.path("model");
+        } else if ("dart".equals(boosterName)) {
+            model = booster.path("gbtree").path("model");
+            weightDrop = booster.path("weight_drop");
+        } else {
+            throw new IllegalArgumentException("Unsupported booster: " + boosterName);
+        }
+
+        JsonNode trees = model.path("trees");
+        int numTrees = trees.size();
+        int totalNodes = 0;
+        for (JsonNode tree : trees) {
+            totalNodes += tree.path("left_children").size();
+        }
+
+        splitFeature = new int[totalNodes];
+        threshold = new float[totalNodes];
+        leftChild = new int[totalNodes];
+        rightChild = new int[totalNodes];
+        defaultLeft = new boolean[totalNodes];
+        nodeMean = new float[totalNodes];
+        treeRoot = new int[numTrees];
+        treeWeight = new float[numTrees];
+
+        float[] cover = new float[totalNodes];
+        int offset = 0;
+        for (int t = 0; t < numTrees; t++) {
+            JsonNode tree = trees.get(t);
+            JsonNode left = tree.path("left_children");
+            JsonNode right = tree.path("right_children");
+            JsonNode indices = tree.path("split_indices");
+            JsonNode conditions = tree.path("split_conditions");
+            JsonNode defaults = tree.path("default_left");
+            JsonNode splitTypes = tree.path("split_type");
+            JsonNode hessians = tree.path("sum_hessian");
+
+            treeRoot[t] = offset;
+            treeWeight[t] = weightDrop != null ? (float) weightDrop.get(t).asDouble() : 1f;
+
+            int numNodes = left.size();
+            for (int n = 0; n < numNodes; n++) {
+                int id = offset + n;
+                if (splitTypes.size() > n && splitTypes.get(n).asInt() != 0) {
+                    throw new IllegalArgumentException("Categorical splits are not supported (tree " + t + ")");
+                }
+                int l = left.get(n).asInt();
+                leftChild[id] = l == LEAF ? LEAF : offset + l;
+                rightChild[id] = l == LEAF ? LEAF : offset + right.get(n).asInt();
+                splitFeature[id] = indices.get(n).asInt();
+                threshold[id] = (float) conditions.get(n).asDouble();
+                defaultLeft[id] = defaults.get(n).asBoolean();
+                cover[id] = hessians.size() > n ? (float) hessians.get(n).asDouble() : 1f;
+            }
+            fillNodeMean(offset, cover);
+            offset += numNodes;
+        }
+    }
+
+    @Override
+    public float[] predict(float[] features, int rows) {
+        float[] out = new float[rows];
+        for (int row = 0; row < rows; row++) {
+            out[row] = predictRow(features, row * NUM_FEATURES);
+        }
+        return out;
+    }
+
+    public float predictRow(float[] features, int offset) {
+        // Accumulate in float, tree by tree, as the xgboost CPU predictor does
+        float margin = baseMargin;
+        for (int t = 0; t < treeRoot.length; t++) {
+            margin += treeWeight[t] * threshold[leafFor(treeRoot[t], features, offset)];
+        }
+        return logistic ? ScoredBatch.sigmoid(margin) : margin;
+    }
+
+    // Saabas-style path attribution (xgboost's approx_contribs): along each decision path, the change
+    // in the node mean is credited to the split feature, and the root mean goes to the bias. Rows sum
+    // to the margin exactly like pred_contribs, but per-feature values differ from exact TreeSHAP.
+    @Override
+    public ScoredBatch predictWithContributions(float[] features, int rows) {
+        float[] probabilities = new float[rows];
+        float[] contributions = new float[rows * ScoredBatch.CONTRIB_STRIDE];
+        for (int row = 0; row < rows; row++) {
+            int offset = row * NUM_FEATURES;
+            int base = row * ScoredBatch.CONTRIB_STRIDE;
+            float margin = baseMargin;
+            contributions[base + ScoredBatch.BIAS] = baseMargin;
+            for (int t = 0; t < treeRoot.length; t++) {
+                float weight = treeWeight[t];
+                int node = treeRoot[t];
+                contributions[base + ScoredBatch.BIAS] += weight * nodeMean[node];
+                while (leftChild[node] != LEAF) {
+                    int next = nextNode(node, features, offset);
+                    contributions[base + splitFeature[node]] += weight * (nodeMean[next] - nodeMean[node]);
+                    node = next;
+                }
+                margin += weight * threshold[node];
+            }
+            probabilities[row] = logistic ? ScoredBatch.sigmoid(margin) : margin;
+        }
+        return new ScoredBatch(probabilities, contributions);
+    }
+
+    public int numTrees() {
+        return treeRoot.length;
+    }
+
+    @Override
+    public void close() {
+        // Nothing native to release
+    }
+
+    private int leafFor(int node, float[] features, int offset) {
+        while (leftChild[node] != LEAF) {
+            node = nextNode(node, features, offset);
+        }
+        return node;
+    }
+
+    private int nextNode(int node, float[] features, int offset) {
+        float value = features[offset + splitFeature[node]];
+        if (Float.isNaN(value)) {
+            return defaultLeft[node] ? leftChild[node] : rightChild[node];
+        }
+        return value < threshold[node] ? leftChild[node] : rightChild[node];
+    }
+
+    // Mean leaf value under each node, weighted by hessian cover (xgboost's FillNodeMeanValues)
+    private float fillNodeMean(int node, float[] cover) {
+        if (leftChild[node] == LEAF) {
+            nodeMean[node] = threshold[node];
+        } else {
+            float left = fillNodeMean(leftChild[node], cover);
+            float right = fillNodeMean(rightChild[node], cover);
+            float total = cover[node] > 0f ? cover[node] : cover[leftChild[node]] + cover[rightChild[node]];
+            nodeMean[node] = (left * cover[leftChild[node]] + right * cover[rightChild[node]]) / total;
+        }
+        return nodeMean[node];
+    }
+
+    // Newer xgboost versions write the intercept as a vector, e.g. "[5E-1]"
+    private static float parseBaseScore(String raw) {
+        String value = raw.trim();
+        if (value.startsWith("[") && value.endsWith("]")) {
+            value = value.substring(1, value.length() - 1).split(",")[0].trim();
+        }
+        return Float.parseFloat(value);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,96 @@
+package com.medbot.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import ml.dmlc.xgboost4j.java.Booster;
+import ml.dmlc.xgboost4j.java.DMatrix;
+
+// Native xgboost4j inference: one DMatrix + Booster.predict per call, on a Booster borrowed from the pool
+public class XGBoostEngine implements InferenceEngine {
+    private static final int NUM_FEATURES = FeatureVectorizer.NUM_FEATURES;
+
+    private final BoosterPool pool;
+
+    // Single-Booster engine without exported metrics (tests, tools)
+    public XGBoostEngine(byte[] modelJson) throws Exception {
+        this(modelJson, "local", 1, 0, Long.MAX_VALUE, new SimpleMeterRegistry());
+    }
+
+    public XGBoostEngine(byte[] modelJson, String modelVersion, int poolSize, int threadsPerBooster,
+                         long borrowTimeoutMs, MeterRegistry registry) throws Exception {
+        this.pool = new BoosterPool(modelJson, modelVersion, poolSize, threadsPerBooster, borrowTimeoutMs, registry);
+    }
+
+    @Override
+    public float[] predict(float[] features, int rows) {
+        DMatrix dmatrix = null;
+        Booster model = null;
+        try {
+            dmatrix = new DMatrix(features, rows, NUM_FEATURES, Float.NaN);
+            model = pool.borrow();
+            float[][] prediction = model.predict(dmatrix);
+
+            float[] probabilities = new float[rows];
+            for (int row = 0; row < rows; row++) {
+                probabilities[row] = prediction[row][0];  // Binary: [row][0] for positive class
+            }
+            return probabilities;
+        } catch (Exception e) {
+            throw new RuntimeException("Prediction failed: " + e.getMessage(), e);
+        } finally {
+            if (model != null) {
+                pool.giveBack(model);
+            }
+            if (dmatrix != null) {
+                dmatrix.dispose();
+            }
+        }
+    }
+
+    // One native pred_contribs call (TreeSHAP); each row sums to the margin, so the probability comes for free
+    @Override
+    public ScoredBatch predictWithContributions(float[] features, int rows) {
+        DMatrix dmatrix = null;
+        Booster model = null;
+        try {
+            dmatrix = new DMatrix(features, rows, NUM_FEATURES, Float.NaN);
+            model = pool.borrow();
+            float[][] contribs = model.predictContrib(dmatrix, 0);
+
+            float[] probabilities = new float[rows];
+            float[] contributions = new float[rows * ScoredBatch.CONTRIB_STRIDE];
+            for (int row = 0; row < rows; row++) {
+                float[] values = contribs[row];
+                int bias = values.length - 1;  // num_feature columns, then bias
+                int base = row * ScoredBatch.CONTRIB_STRIDE;
+                float margin = 0f;
+                for (int i = 0; i < bias; i++) {
+                    contributions[base + i] = values[i];
+                    margin += values[i];
+                }
+                contributions[base + ScoredBatch.BIAS] = values[bias];
+                margin += values[bias];
+                probabilities[row] = ScoredBatch.sigmoid(margin);
+            }
+            return new ScoredBatch(probabilities, contributions);
+        } catch (Exception e) {
+            throw new RuntimeException("Prediction failed: " + e.getMessage(), e);
+        } finally {
+            if (model != null) {
+                pool.giveBack(model);
+            }
+            if (dmatrix != null) {
+                dmatrix.dispose();
+            }
+        }
+    }
+
+    public BoosterPool getPool() {
+        return pool;
+    }
+
+    @Override
+    public void close() {
+        pool.close();
+    }
+}
\ No newline at end of file
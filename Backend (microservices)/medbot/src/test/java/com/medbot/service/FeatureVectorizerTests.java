@@ -0,0 +1,109 @@
+package com.medbot.service;
+
+import com.medbot.dto.HealthRecord;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class FeatureVectorizerTests {
+
+	@Test
+	void matchesLegacyVectorizationBitForBit() {
+		Random random = new Random(42);
+		float[] actual = new float[FeatureVectorizer.NUM_FEATURES];
+		for (int n = 0; n < 100_000; n++) {
+			HealthRecord record = randomRecord(random);
+			float[] expected = legacyFeatures(record);
+			FeatureVectorizer.vectorize(record, actual, 0);
+			for (int i = 0; i < expected.length; i++) {
+				assertEquals(Float.floatToRawIntBits(expected[i]), Float.floatToRawIntBits(actual[i]),
+						"feature " + i + " differs for record #" + n);
+			}
+		}
+	}
+
+	@Test
+	void writesAtOffset() {
+		HealthRecord record = randomRecord(new Random(7));
+		float[] batch = new float[3 * FeatureVectorizer.NUM_FEATURES];
+		FeatureVectorizer.vectorize(record, batch, 2 * FeatureVectorizer.NUM_FEATURES);
+		float[] expected = legacyFeatures(record);
+		for (int i = 0; i < expected.length; i++) {
+			assertEquals(expected[i], batch[2 * FeatureVectorizer.NUM_FEATURES + i]);
+			assertEquals(0f, batch[i]);
+		}
+	}
+
+	// Mixes nulls, in-range, out-of-range and exact clip-bound values
+	static HealthRecord randomRecord(Random random) {
+		HealthRecord record = new HealthRecord();
+		record.setAge(randomDouble(random, 35.0, 70.0));
+		record.setThalach(randomDouble(random, 90.0, 180.0));
+		record.setOldpeak(randomDouble(random, 0.0, 4.0));
+		record.setTrestbps(randomDouble(random, 110.0, 160.0));
+		record.setBmi(randomDouble(random, 20.0, 35.0));
+		record.setChol(randomDouble(random, 150.0, 300.0));
+		record.setCa(random.nextInt(6) == 0 ? null : random.nextInt(5));
+		record.setThal(random.nextInt(6) == 0 ? null : 3 + random.nextInt(5));
+		record.setRestecg(random.nextInt(6) == 0 ? null : random.nextInt(3));
+		record.setCp(random.nextInt(6) == 0 ? null : 1 + random.nextInt(4));
+		return record;
+	}
+
+	private static Double randomDouble(Random random, double low, double high) {
+		switch (random.nextInt(8)) {
+			case 0:
+				return null;
+			case 1:
+				return low;
+			case 2:
+				return high;
+			default:
+				double span = high - low;
+				return low - span + random.nextDouble() * 3 * span;
+		}
+	}
+
+	// Verbatim copy of the original map-based vectorization in PredictionService.predict
+	static float[] legacyFeatures(HealthRecord record) {
+		double[] scalerMeans = new double[]{
+				53.561934411571166, 133.42083179822853, 3.290263101026517, 145.87632758466876,
+				27.59021092690132, 315.6976306565412
+		};
+		double[] scalerStds = new double[]{
+				12.522074324666445, 38.252686702130454, 1.6037072754870243, 29.156524438809672,
+				6.605567052183025, 92.58089559773687
+		};
+
+		Map<String, Object> data = new HashMap<>();
+		data.put("age", record.getAge() != null ? record.getAge() : scalerMeans[0]);
+		data.put("thalach", record.getThalach() != null ? record.getThalach() : scalerMeans[1]);
+		data.put("oldpeak", record.getOldpeak() != null ? record.getOldpeak() : scalerMeans[2]);
+		data.put("trestbps", record.getTrestbps() != null ? record.getTrestbps() : scalerMeans[3]);
+		data.put("bmi", record.getBmi() != null ? record.getBmi() : scalerMeans[4]);
+		data.put("chol", record.getChol() != null ? record.getChol() : scalerMeans[5]);
+
+		double[][] clips = {{35.0, 70.0}, {90.0, 180.0}, {0.0, 4.0}, {110.0, 160.0}, {20.0, 35.0}, {150.0, 300.0}};
+		String[] numNames = {"age", "thalach", "oldpeak", "trestbps", "bmi", "chol"};
+		for (int i = 0; i < numNames.length; i++) {
+			double val = (Double) data.get(numNames[i]);
+			val = Math.max(clips[i][0], Math.min(clips[i][1], val));
+			data.put(numNames[i], val);
+		}
+
+		float[] features = new float[10];
+		for (int i = 0; i < 6; i++) {
+			double val = (Double) data.get(numNames[i]);
+			features[i] = (float) ((val - scalerMeans[i]) / scalerStds[i]);
+		}
+		features[6] = record.getCa() != null ? record.getCa().floatValue() : 0f;
+		features[7] = record.getThal() != null ? record.getThal().floatValue() : 3f;
+		features[8] = record.getRestecg() != null ? record.getRestecg().floatValue() : 0f;
+		features[9] = record.getCp() != null ? record.getCp().floatValue() : 2f;
+		return features;
+	}
+}
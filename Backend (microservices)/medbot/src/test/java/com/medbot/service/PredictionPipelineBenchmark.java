@@ -0,0 +1,244 @@
+package com.medbot.service;
+
+import com.medbot.dto.HealthRecord;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import ml.dmlc.xgboost4j.java.Booster;
+import ml.dmlc.xgboost4j.java.DMatrix;
+import ml.dmlc.xgboost4j.java.XGBoost;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Per-request cost of the prediction pipeline against the bundled model.json, on synthetic records.
+// Run with: mvn -Pbenchmark -DskipTests verify (results in target/jmh-result.json).
+// SampleTime mode so the JSON carries p50/p99 next to the mean.
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PredictionPipelineBenchmark {
+	private static final int NUM_FEATURES = FeatureVectorizer.NUM_FEATURES;
+	private static final int RECORDS = 1024;  // Power of two, cycled with a mask
+
+	// generateExplanation reads nothing but the record, so it needs no wiring
+	private static final PredictionService EXPLAINER = new PredictionService(null, null, null, null);
+
+	@State(Scope.Thread)
+	public static class Records {
+		HealthRecord[] records;
+		float[] row = new float[NUM_FEATURES];
+		int next;
+
+		@Setup
+		public void setUp() {
+			Random random = new Random(42);
+			records = new HealthRecord[RECORDS];
+			for (int i = 0; i < RECORDS; i++) {
+				records[i] = FeatureVectorizerTests.randomRecord(random);
+			}
+		}
+
+		HealthRecord nextRecord() {
+			return records[next++ & (RECORDS - 1)];
+		}
+	}
+
+	// Raw Booster and pre-vectorized feature blocks for the native-call benchmarks
+	@State(Scope.Thread)
+	public static class Native {
+		@Param({"1", "16", "128", "1024"})
+		int rows;
+
+		Booster booster;
+		float[] features;
+
+		@Setup
+		public void setUp(Records records) throws Exception {
+			booster = XGBoost.loadModel(new ByteArrayInputStream(bundledModel()));
+			booster.setParam("nthread", 1);
+			features = new float[rows * NUM_FEATURES];
+			for (int row = 0; row < rows; row++) {
+				FeatureVectorizer.vectorize(records.records[row % RECORDS], features, row * NUM_FEATURES);
+			}
+		}
+
+		@TearDown
+		public void tearDown() {
+			booster.dispose();
+		}
+	}
+
+	// Both inference engines behind the InferenceEngine interface, on the same feature blocks
+	@State(Scope.Thread)
+	public static class Engines {
+		@Param({"xgboost", "java"})
+		String engine;
+
+		@Param({"1", "128"})
+		int rows;
+
+		InferenceEngine inferenceEngine;
+		float[] features;
+
+		@Setup
+		public void setUp(Records records) throws Exception {
+			byte[] modelJson = bundledModel();
+			inferenceEngine = "java".equals(engine) ? new TreeEnsembleEngine(modelJson) : new XGBoostEngine(modelJson);
+			features = new float[rows * NUM_FEATURES];
+			for (int row = 0; row < rows; row++) {
+				FeatureVectorizer.vectorize(records.records[row % RECORDS], features, row * NUM_FEATURES);
+			}
+		}
+
+		@TearDown
+		public void tearDown() {
+			inferenceEngine.close();
+		}
+	}
+
+	@State(Scope.Benchmark)
+	public static class Drift {
+		DriftMonitor monitor;
+
+		@Setup
+		public void setUp() {
+			monitor = new DriftMonitor();
+			ReflectionTestUtils.setField(monitor, "enabled", true);
+		}
+	}
+
+	// PredictionService wired the way Spring does it, with the cache off so every call is scored
+	@State(Scope.Benchmark)
+	public static class Service {
+		@Param({"rules", "contributions"})
+		String explanationMode;
+
+		ModelRegistry modelRegistry;
+		PredictionService predictionService;
+
+		@Setup
+		public void setUp() throws Exception {
+			SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+			InferenceEngineFactory engineFactory = new InferenceEngineFactory(meterRegistry);
+			ReflectionTestUtils.setField(engineFactory, "engineType", "xgboost");
+			ReflectionTestUtils.setField(engineFactory, "poolSize", Runtime.getRuntime().availableProcessors());
+			ReflectionTestUtils.setField(engineFactory, "threadsPerBooster", 1);
+			ReflectionTestUtils.setField(engineFactory, "borrowTimeoutMs", 5000L);
+
+			PredictionCache cache = new PredictionCache(meterRegistry);
+			ReflectionTestUtils.setField(cache, "enabled", false);
+			ReflectionTestUtils.setField(cache, "maxSize", 1L);
+			ReflectionTestUtils.setField(cache, "expireAfterWriteMinutes", 1L);
+			cache.init();
+
+			modelRegistry = new ModelRegistry(engineFactory, cache, meterRegistry);
+			ReflectionTestUtils.setField(modelRegistry, "modelsDir", "");
+			ReflectionTestUtils.setField(modelRegistry, "initialVersion", "");
+			ReflectionTestUtils.setField(modelRegistry, "bundledVersion", "bundled");
+			ReflectionTestUtils.setField(modelRegistry, "warmupRows", 512);
+			ReflectionTestUtils.setField(modelRegistry, "warmupIterations", 20);
+			ReflectionTestUtils.setField(modelRegistry, "retireDelayMs", 0L);
+			modelRegistry.init();
+
+			DriftMonitor driftMonitor = new DriftMonitor();
+			ReflectionTestUtils.setField(driftMonitor, "enabled", true);
+
+			predictionService = new PredictionService(modelRegistry, meterRegistry, cache, driftMonitor);
+			ReflectionTestUtils.setField(predictionService, "explanationMode", explanationMode);
+			ReflectionTestUtils.setField(predictionService, "explanationTopK", 3);
+			ReflectionTestUtils.setField(predictionService, "batchingEnabled", false);
+			predictionService.init();
+		}
+
+		@TearDown
+		public void tearDown() {
+			predictionService.shutdown();
+			modelRegistry.shutdown();
+		}
+	}
+
+	@Benchmark
+	public Object predictEndToEnd(Service service, Records records) {
+		return service.predictionService.predict(records.nextRecord());
+	}
+
+	@Benchmark
+	public float[] vectorize(Records records) {
+		FeatureVectorizer.vectorize(records.nextRecord(), records.row, 0);
+		return records.row;
+	}
+
+	// The original map-based vectorization, for comparison with vectorize()
+	@Benchmark
+	public float[] vectorizeLegacy(Records records) {
+		return FeatureVectorizerTests.legacyFeatures(records.nextRecord());
+	}
+
+	@Benchmark
+	public long createDMatrix(Native state) throws Exception {
+		DMatrix dmatrix = new DMatrix(state.features, state.rows, NUM_FEATURES, Float.NaN);
+		long rows = dmatrix.rowNum();
+		dmatrix.dispose();
+		return rows;
+	}
+
+	// DMatrix creation included, as on the request path; compare rows=1 against rows=N per row
+	@Benchmark
+	public float[][] boosterPredict(Native state) throws Exception {
+		DMatrix dmatrix = new DMatrix(state.features, state.rows, NUM_FEATURES, Float.NaN);
+		try {
+			return state.booster.predict(dmatrix);
+		} finally {
+			dmatrix.dispose();
+		}
+	}
+
+	@Benchmark
+	public float[] enginePredict(Engines state) {
+		return state.inferenceEngine.predict(state.features, state.rows);
+	}
+
+	@Benchmark
+	public ScoredBatch enginePredictWithContributions(Engines state) {
+		return state.inferenceEngine.predictWithContributions(state.features, state.rows);
+	}
+
+	// Per-prediction cost of the drift sketches on the hot path
+	@Benchmark
+	public DriftMonitor recordDrift(Drift drift, Records records) {
+		drift.monitor.record(records.nextRecord(), 0.5);
+		return drift.monitor;
+	}
+
+	@Benchmark
+	public String generateExplanation(Records records) {
+		HealthRecord record = records.nextRecord();
+		return EXPLAINER.generateExplanation(records.next & 1, record);  // Alternate high/low risk text
+	}
+
+	private static byte[] bundledModel() throws Exception {
+		try (InputStream modelStream = PredictionPipelineBenchmark.class.getResourceAsStream("/model.json")) {
+			if (modelStream == null) {
+				throw new IllegalStateException("model.json not on the classpath; copy it to src/main/resources");
+			}
+			return modelStream.readAllBytes();
+		}
+	}
+}
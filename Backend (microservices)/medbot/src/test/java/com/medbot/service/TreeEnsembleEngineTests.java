@@ -0,0 +1,105 @@
+package com.medbot.service;
+
+import ml.dmlc.xgboost4j.java.Booster;
+import ml.dmlc.xgboost4j.java.DMatrix;
+import ml.dmlc.xgboost4j.java.XGBoost;
+import org.junit.jupiter.api.Test;
+
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class TreeEnsembleEngineTests {
+	private static final int NUM_FEATURES = FeatureVectorizer.NUM_FEATURES;
+	private static final int ROWS = 20_000;
+	private static final float TOLERANCE = 1e-6f;
+
+	@Test
+	void matchesXGBoostOnTrainedGbtreeModel() throws Exception {
+		assertParity(trainModel("gbtree", 7), new Random(11));
+	}
+
+	@Test
+	void matchesXGBoostOnTrainedDartModel() throws Exception {
+		assertParity(trainModel("dart", 13), new Random(17));
+	}
+
+	@Test
+	void matchesXGBoostOnBundledModel() throws Exception {
+		byte[] modelJson;
+		try (InputStream modelStream = getClass().getResourceAsStream("/model.json")) {
+			assumeTrue(modelStream != null, "model.json not on the classpath");
+			modelJson = modelStream.readAllBytes();
+		}
+		assertParity(modelJson, new Random(23));
+	}
+
+	private static void assertParity(byte[] modelJson, Random random) throws Exception {
+		float[] features = randomFeatures(random, ROWS);
+		try (XGBoostEngine expectedEngine = new XGBoostEngine(modelJson);
+			 TreeEnsembleEngine actualEngine = new TreeEnsembleEngine(modelJson)) {
+			float[] expected = expectedEngine.predict(features, ROWS);
+			float[] actual = actualEngine.predict(features, ROWS);
+			for (int row = 0; row < ROWS; row++) {
+				assertEquals(expected[row], actual[row], TOLERANCE, "row " + row);
+			}
+		}
+	}
+
+	private static byte[] trainModel(String booster, long seed) throws Exception {
+		Random random = new Random(seed);
+		int rows = 2_000;
+		float[] data = randomFeatures(random, rows);
+		float[] labels = new float[rows];
+		for (int row = 0; row < rows; row++) {
+			int o = row * NUM_FEATURES;
+			float signal = nanToZero(data[o]) + 0.5f * nanToZero(data[o + 5]) - nanToZero(data[o + 1]) + 0.3f * data[o + 6];
+			labels[row] = signal + 0.5f * (float) random.nextGaussian() > 0 ? 1f : 0f;
+		}
+
+		DMatrix train = new DMatrix(data, rows, NUM_FEATURES, Float.NaN);
+		train.setLabel(labels);
+		Map<String, Object> params = new HashMap<>();
+		params.put("booster", booster);
+		params.put("objective", "binary:logistic");
+		params.put("max_depth", 5);
+		params.put("eta", 0.3);
+		params.put("nthread", 1);
+		params.put("seed", seed);
+		if ("dart".equals(booster)) {
+			params.put("rate_drop", 0.1);
+		}
+		Booster model = XGBoost.train(train, params, 40, new HashMap<>(), null, null);
+		try {
+			return model.toByteArray("json");
+		} finally {
+			model.dispose();
+			train.dispose();
+		}
+	}
+
+	// Standardized numerics (with missing values and values on exact split points) plus categorical codes
+	private static float[] randomFeatures(Random random, int rows) {
+		float[] features = new float[rows * NUM_FEATURES];
+		for (int row = 0; row < rows; row++) {
+			int o = row * NUM_FEATURES;
+			for (int i = 0; i < FeatureVectorizer.NUM_NUMERIC; i++) {
+				int pick = random.nextInt(20);
+				features[o + i] = pick == 0 ? Float.NaN : pick == 1 ? 0f : (float) (random.nextGaussian() * 1.5);
+			}
+			features[o + 6] = random.nextInt(5);
+			features[o + 7] = 3 + random.nextInt(5);
+			features[o + 8] = random.nextInt(3);
+			features[o + 9] = 1 + random.nextInt(4);
+		}
+		return features;
+	}
+
+	private static float nanToZero(float value) {
+		return Float.isNaN(value) ? 0f : value;
+	}
+}
@@ -2,12 +2,14 @@ package com.tursa.mldata;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class MldataApplication {
 
 	public static void main(String[] args) {
 		SpringApplication.run(MldataApplication.class, args);
 	}
 
-}
+}
\ No newline at end of file
@@ -3,10 +3,13 @@ package com.tursa.mldata.config;
 // ===== FIREBASE CONFIGURATION =====
 
 import com.google.auth.oauth2.GoogleCredentials;
+import com.google.cloud.NoCredentials;
 import com.google.cloud.firestore.Firestore;
+import com.google.cloud.firestore.FirestoreOptions;
 import com.google.firebase.FirebaseApp;
 import com.google.firebase.FirebaseOptions;
 import com.google.firebase.cloud.FirestoreClient;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
@@ -16,8 +19,24 @@ import java.io.IOException;
 @Configuration
 public class FirebaseConfig {
 
+    @Value("${firestore.emulator-host:}")  // e.g. localhost:8080; empty = the real project via the service account
+    private String emulatorHost;
+
+    @Value("${firestore.project-id:medi-centric}")
+    private String projectId;
+
     @Bean
     public Firestore firestore() throws IOException {
+        if (!emulatorHost.isBlank()) {
+            // Local runs against the Firestore emulator need no credentials
+            return FirestoreOptions.newBuilder()
+                    .setProjectId(projectId)
+                    .setEmulatorHost(emulatorHost)
+                    .setCredentials(NoCredentials.getInstance())
+                    .build()
+                    .getService();
+        }
+
         FileInputStream serviceAccount = new FileInputStream("src/main/resources/medi-centric-firebase-adminsdk-fbsvc-a0cf49363a.json");
 
         FirebaseOptions options = FirebaseOptions.builder()
@@ -1,11 +1,31 @@
 package com.tursa.mldata.controller;
 
+import com.google.cloud.Timestamp;
 import com.google.cloud.firestore.FirestoreException;
+import com.tursa.mldata.dto.BackfillResult;
+import com.tursa.mldata.dto.BatchWriteResponse;
+import com.tursa.mldata.dto.ExportManifest;
+import com.tursa.mldata.dto.HealthRecordPage;
+import com.tursa.mldata.dto.HistorySeries;
+import com.tursa.mldata.dto.LatestCacheStats;
+import com.tursa.mldata.dto.UserAggregatesResponse;
+import com.tursa.mldata.dto.WriteBehindStats;
 import com.tursa.mldata.entity.HealthRecord;
 import com.tursa.mldata.service.HealthRecordService;
+import com.tursa.mldata.service.LatestRecordStore;
+import com.tursa.mldata.service.RecordStreamIngestor;
+import com.tursa.mldata.service.TrainingDataExporter;
+import com.tursa.mldata.service.UserAggregateStore;
+import com.tursa.mldata.service.WriteBehindJournal;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.time.format.DateTimeParseException;
+import java.util.List;
 import java.util.concurrent.ExecutionException;
 
 @RestController
@@ -13,23 +33,102 @@ import java.util.concurrent.ExecutionException;
 public class HealthRecordController {
 
     private final HealthRecordService service;
+    private final RecordStreamIngestor streamIngestor;
+    private final LatestRecordStore latestRecordStore;
+    private final UserAggregateStore userAggregateStore;
+    private final WriteBehindJournal writeBehindJournal;
+    private final TrainingDataExporter trainingDataExporter;
 
-    public HealthRecordController(HealthRecordService service) {
+    @Value("${health.records.max-page-size:5000}")
+    private int maxPageSize;
+
+    @Value("${health.records.history.max-points:5000}")
+    private int maxSeriesPoints;
+
+    @Value("${health.records.batch.max-size:5000}")
+    private int maxBatchSize;
+
+    public HealthRecordController(HealthRecordService service, RecordStreamIngestor streamIngestor,
+                                  LatestRecordStore latestRecordStore, UserAggregateStore userAggregateStore,
+                                  WriteBehindJournal writeBehindJournal, TrainingDataExporter trainingDataExporter) {
         this.service = service;
+        this.streamIngestor = streamIngestor;
+        this.latestRecordStore = latestRecordStore;
+        this.userAggregateStore = userAggregateStore;
+        this.writeBehindJournal = writeBehindJournal;
+        this.trainingDataExporter = trainingDataExporter;
     }
 
     @PostMapping("/record")
     public ResponseEntity<String> addRecord(@RequestBody HealthRecord record, @RequestParam(defaultValue = "demoUser") String userId) {
         try {
             record.setUserId(userId);  // Set userId from param
+            if (writeBehindJournal.isEnabled()) {
+                // Write-behind mode: durable in the local journal now, in Firestore once the drainer catches up
+                String id = writeBehindJournal.append(record);
+                return ResponseEntity.accepted().body("Record accepted: " + id);
+            }
             String result = service.saveRecord(record);
             return ResponseEntity.ok(result);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (IOException e) {
+            e.printStackTrace();
+            return ResponseEntity.status(503).body("Write-behind journal unavailable: " + e.getMessage());
         } catch (ExecutionException | InterruptedException | FirestoreException e) {
             e.printStackTrace();
             return ResponseEntity.status(500).body("Error saving record: " + e.getMessage());
         }
     }
 
+    // NEW: Bulk ingestion (clinic history sync). Items without their own userId get the userId param, like
+    // the single endpoint; per-item results come back in request order with throughput for the whole batch
+    @PostMapping("/records/batch")
+    public ResponseEntity<?> addRecords(@RequestBody List<HealthRecord> records,
+                                        @RequestParam(defaultValue = "demoUser") String userId) {
+        if (records == null || records.isEmpty()) {
+            return ResponseEntity.badRequest().body("Batch must contain at least one record");
+        }
+        if (records.size() > maxBatchSize) {
+            return ResponseEntity.badRequest().body("Batch exceeds " + maxBatchSize + " records");
+        }
+        if (userId.isBlank()) {
+            return ResponseEntity.badRequest().body("userId must not be blank");
+        }
+        for (HealthRecord record : records) {
+            if (record != null && (record.getUserId() == null || record.getUserId().isBlank())) {
+                record.setUserId(userId);
+            }
+        }
+        try {
+            BatchWriteResponse response = service.saveRecords(records);
+            return ResponseEntity.ok(response);
+        } catch (InterruptedException | FirestoreException e) {
+            e.printStackTrace();
+            return ResponseEntity.status(500).body("Error saving records: " + e.getMessage());
+        }
+    }
+
+    // NEW: Streaming ingestion for device feeds: one JSON record per line in a single long request
+    // (e.g. curl -T vitals.ndjson -H 'Content-Type: application/x-ndjson'). The reply is NDJSON too: an
+    // "error" event per failed line, a "progress" event every few thousand lines and a final "done" summary.
+    @PostMapping(value = "/records/stream", consumes = "application/x-ndjson")
+    public void streamRecords(@RequestParam(defaultValue = "demoUser") String userId,
+                              HttpServletRequest request, HttpServletResponse response) throws IOException {
+        if (userId.isBlank()) {
+            response.sendError(400, "userId must not be blank");
+            return;
+        }
+        response.setContentType("application/x-ndjson");
+        response.setCharacterEncoding("UTF-8");
+        try {
+            streamIngestor.ingest(request.getInputStream(), response.getOutputStream(), userId);
+        } catch (InterruptedException | FirestoreException e) {
+            e.printStackTrace();
+            response.getOutputStream().write(("{\"type\":\"aborted\"}\n").getBytes());
+        }
+    }
+
     // NEW: GET for latest record (supports GET method)
     @GetMapping("/record/latest")
     public ResponseEntity<HealthRecord> getLatestRecord(@RequestParam String userId) {
@@ -44,4 +143,181 @@ public class HealthRecordController {
             return ResponseEntity.status(500).body(null);
         }
     }
+
+    // NEW: One-off rebuild of the latest_records projection from existing history (safe to re-run)
+    @PostMapping("/record/latest/backfill")
+    public ResponseEntity<BackfillResult> backfillLatest() {
+        try {
+            return ResponseEntity.ok(latestRecordStore.backfill());
+        } catch (ExecutionException | InterruptedException | FirestoreException e) {
+            e.printStackTrace();
+            return ResponseEntity.status(500).body(null);
+        }
+    }
+
+    // NEW: Latest-record cache state (ready=false: listener down or resyncing, reads go to Firestore)
+    @GetMapping("/record/latest/cache")
+    public ResponseEntity<LatestCacheStats> getLatestCacheStats() {
+        return ResponseEntity.ok(latestRecordStore.stats());
+    }
+
+    // NEW: One-off migration to the sharded write layout: gives pre-existing records a write shard
+    @PostMapping("/records/shards/backfill")
+    public ResponseEntity<String> backfillShards(@RequestParam(defaultValue = "1000") int pageSize) {
+        if (pageSize < 1 || pageSize > maxPageSize) {
+            return ResponseEntity.badRequest().body("pageSize must be between 1 and " + maxPageSize);
+        }
+        try {
+            return ResponseEntity.ok(service.assignMissingShards(pageSize));
+        } catch (ExecutionException | InterruptedException | FirestoreException e) {
+            e.printStackTrace();
+            return ResponseEntity.status(500).body("Error assigning shards: " + e.getMessage());
+        }
+    }
+
+    // NEW: Export records written since the last export as .npy columns per shard (see TrainingDataExporter)
+    @PostMapping("/exports")
+    public ResponseEntity<ExportManifest> runExport() {
+        try {
+            return ResponseEntity.ok(trainingDataExporter.export());
+        } catch (IllegalStateException e) {
+            System.err.println("Export not started: " + e.getMessage());
+            return ResponseEntity.status(409).body(null);  // Already running, or records still lack a write shard
+        } catch (IOException | ExecutionException | InterruptedException | FirestoreException e) {
+            e.printStackTrace();
+            return ResponseEntity.status(500).body(null);
+        }
+    }
+
+    // NEW: Manifest of the last completed export; its `to` is the watermark the next export starts from
+    @GetMapping("/exports/latest")
+    public ResponseEntity<ExportManifest> getLatestExport() {
+        try {
+            ExportManifest manifest = trainingDataExporter.latest();
+            if (manifest != null) {
+                return ResponseEntity.ok(manifest);
+            }
+            return ResponseEntity.notFound().build();
+        } catch (IOException e) {
+            e.printStackTrace();
+            return ResponseEntity.status(500).body(null);
+        }
+    }
+
+    // NEW: Write-behind journal queue depth and drain lag (for alerting); enabled=false when the mode is off
+    @GetMapping("/write-behind")
+    public ResponseEntity<WriteBehindStats> getWriteBehindStats() {
+        return ResponseEntity.ok(writeBehindJournal.stats());
+    }
+
+    // NEW: Running min/max/mean/std/last of chol, trestbps, thalach and bmi (all time, last 7 and 30 days);
+    // one document read regardless of history length
+    @GetMapping("/aggregates")
+    public ResponseEntity<UserAggregatesResponse> getAggregates(@RequestParam String userId) {
+        try {
+            UserAggregatesResponse aggregates = userAggregateStore.summary(userId);
+            if (aggregates != null) {
+                return ResponseEntity.ok(aggregates);
+            }
+            return ResponseEntity.notFound().build();
+        } catch (ExecutionException | InterruptedException | FirestoreException e) {
+            e.printStackTrace();
+            return ResponseEntity.status(500).body(null);
+        }
+    }
+
+    // NEW: Recompute one user's aggregates from their full history (records saved before aggregates existed)
+    @PostMapping("/aggregates/rebuild")
+    public ResponseEntity<UserAggregatesResponse> rebuildAggregates(@RequestParam String userId) {
+        try {
+            return ResponseEntity.ok(service.rebuildAggregates(userId));
+        } catch (ExecutionException | InterruptedException | FirestoreException e) {
+            e.printStackTrace();
+            return ResponseEntity.status(500).body(null);
+        }
+    }
+
+    // NEW: Paged scan over all records (population scoring jobs); follow nextPageToken until it is null
+    @GetMapping("/records")
+    public ResponseEntity<HealthRecordPage> getRecords(@RequestParam(required = false) String pageToken,
+                                                       @RequestParam(defaultValue = "1000") int pageSize) {
+        if (pageSize < 1 || pageSize > maxPageSize) {
+            return ResponseEntity.badRequest().build();
+        }
+        try {
+            return ResponseEntity.ok(service.getRecordPage(pageToken, pageSize));
+        } catch (ExecutionException | InterruptedException | FirestoreException e) {
+            e.printStackTrace();
+            return ResponseEntity.status(500).body(null);
+        }
+    }
+
+    // NEW: One user's history, oldest first, in pages (follow nextPageToken until it is null); from/to are
+    // optional ISO-8601 bounds, from inclusive and to exclusive
+    @GetMapping("/records/history")
+    public ResponseEntity<HealthRecordPage> getHistory(@RequestParam String userId,
+                                                       @RequestParam(required = false) String from,
+                                                       @RequestParam(required = false) String to,
+                                                       @RequestParam(required = false) String pageToken,
+                                                       @RequestParam(defaultValue = "1000") int pageSize) {
+        if (pageSize < 1 || pageSize > maxPageSize) {
+            return ResponseEntity.badRequest().build();
+        }
+        try {
+            return ResponseEntity.ok(service.getHistoryPage(userId, parseTime(from), parseTime(to), pageToken, pageSize));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            return ResponseEntity.badRequest().build();
+        } catch (ExecutionException | InterruptedException | FirestoreException e) {
+            e.printStackTrace();
+            return ResponseEntity.status(500).body(null);
+        }
+    }
+
+    // NEW: Downsampled history for charts: per metric at most `points` points (LTTB) over [from, to), e.g.
+    // a year of minute readings as a few hundred points per vital
+    @GetMapping("/records/history/series")
+    public ResponseEntity<HistorySeries> getHistorySeries(@RequestParam String userId,
+                                                          @RequestParam(required = false) String from,
+                                                          @RequestParam(required = false) String to,
+                                                          @RequestParam(defaultValue = "thalach,trestbps,chol,bmi,oldpeak") List<String> metrics,
+                                                          @RequestParam(defaultValue = "500") int points) {
+        if (points < 3 || points > maxSeriesPoints || metrics.isEmpty()) {
+            return ResponseEntity.badRequest().build();
+        }
+        for (String metric : metrics) {
+            if (!HealthRecordService.isMetric(metric)) {
+                return ResponseEntity.badRequest().build();
+            }
+        }
+        try {
+            return ResponseEntity.ok(service.getHistorySeries(userId, parseTime(from), parseTime(to), metrics, points));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            return ResponseEntity.badRequest().build();
+        } catch (ExecutionException | InterruptedException | FirestoreException e) {
+            e.printStackTrace();
+            return ResponseEntity.status(500).body(null);
+        }
+    }
+
+    // NEW: Records written after `since` (ISO-8601 server time), oldest first, for incremental consumers
+    @GetMapping("/records/changes")
+    public ResponseEntity<HealthRecordPage> getChanges(@RequestParam String since,
+                                                       @RequestParam(required = false) String pageToken,
+                                                       @RequestParam(defaultValue = "1000") int pageSize) {
+        if (pageSize < 1 || pageSize > maxPageSize) {
+            return ResponseEntity.badRequest().build();
+        }
+        try {
+            return ResponseEntity.ok(service.getRecordsSince(Timestamp.parseTimestamp(since), pageToken, pageSize));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            return ResponseEntity.badRequest().build();
+        } catch (ExecutionException | InterruptedException | FirestoreException e) {
+            e.printStackTrace();
+            return ResponseEntity.status(500).body(null);
+        }
+    }
+
+    private static Timestamp parseTime(String value) {
+        return value == null || value.isBlank() ? null : Timestamp.parseTimestamp(value);
+    }
 }
\ No newline at end of file
@@ -0,0 +1,49 @@
+package com.tursa.mldata.dto;
+
+import com.tursa.mldata.entity.MetricStats;
+
+// min/max/mean/std/last of one vital over one window
+public class AggregateSummary {
+    private long count;
+    private Double mean;
+    private Double std;
+    private Double min;
+    private Double max;
+    private Double last;
+    private String lastTime;
+
+    public AggregateSummary() {}
+
+    public static AggregateSummary of(MetricStats stats) {
+        AggregateSummary summary = new AggregateSummary();
+        if (stats == null || stats.getCount() == 0) {
+            return summary;
+        }
+        long n = stats.getCount();
+        double mean = stats.getSum() / n;
+        summary.count = n;
+        summary.mean = mean;
+        // Sample standard deviation from the running sums (clamped: rounding can leave a tiny negative)
+        summary.std = n > 1 ? Math.sqrt(Math.max(0.0, (stats.getSumSq() - n * mean * mean) / (n - 1))) : 0.0;
+        summary.min = stats.getMin();
+        summary.max = stats.getMax();
+        summary.last = stats.getLast();
+        summary.lastTime = stats.getLastTime() != null ? stats.getLastTime().toString() : null;
+        return summary;
+    }
+
+    public long getCount() { return count; }
+    public void setCount(long count) { this.count = count; }
+    public Double getMean() { return mean; }
+    public void setMean(Double mean) { this.mean = mean; }
+    public Double getStd() { return std; }
+    public void setStd(Double std) { this.std = std; }
+    public Double getMin() { return min; }
+    public void setMin(Double min) { this.min = min; }
+    public Double getMax() { return max; }
+    public void setMax(Double max) { this.max = max; }
+    public Double getLast() { return last; }
+    public void setLast(Double last) { this.last = last; }
+    public String getLastTime() { return lastTime; }
+    public void setLastTime(String lastTime) { this.lastTime = lastTime; }
+}
\ No newline at end of file
@@ -0,0 +1,26 @@
+package com.tursa.mldata.dto;
+
+public class BackfillResult {
+    private long recordsScanned;
+    private long users;
+    private long projectionsWritten;  // Users whose projection was missing or older than their newest record
+    private long elapsedMillis;
+
+    public BackfillResult() {}
+
+    public BackfillResult(long recordsScanned, long users, long projectionsWritten, long elapsedMillis) {
+        this.recordsScanned = recordsScanned;
+        this.users = users;
+        this.projectionsWritten = projectionsWritten;
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    public long getRecordsScanned() { return recordsScanned; }
+    public void setRecordsScanned(long recordsScanned) { this.recordsScanned = recordsScanned; }
+    public long getUsers() { return users; }
+    public void setUsers(long users) { this.users = users; }
+    public long getProjectionsWritten() { return projectionsWritten; }
+    public void setProjectionsWritten(long projectionsWritten) { this.projectionsWritten = projectionsWritten; }
+    public long getElapsedMillis() { return elapsedMillis; }
+    public void setElapsedMillis(long elapsedMillis) { this.elapsedMillis = elapsedMillis; }
+}
\ No newline at end of file
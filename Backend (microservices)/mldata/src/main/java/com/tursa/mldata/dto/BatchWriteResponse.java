@@ -0,0 +1,33 @@
+package com.tursa.mldata.dto;
+
+import java.util.List;
+
+public class BatchWriteResponse {
+    private int saved;
+    private int failed;
+    private long elapsedMillis;
+    private double recordsPerSecond;  // saved / elapsed, for throughput runs against the emulator
+    private List<RecordWriteResult> results;
+
+    public BatchWriteResponse() {}
+
+    public BatchWriteResponse(int saved, int failed, long elapsedMillis, double recordsPerSecond,
+                              List<RecordWriteResult> results) {
+        this.saved = saved;
+        this.failed = failed;
+        this.elapsedMillis = elapsedMillis;
+        this.recordsPerSecond = recordsPerSecond;
+        this.results = results;
+    }
+
+    public int getSaved() { return saved; }
+    public void setSaved(int saved) { this.saved = saved; }
+    public int getFailed() { return failed; }
+    public void setFailed(int failed) { this.failed = failed; }
+    public long getElapsedMillis() { return elapsedMillis; }
+    public void setElapsedMillis(long elapsedMillis) { this.elapsedMillis = elapsedMillis; }
+    public double getRecordsPerSecond() { return recordsPerSecond; }
+    public void setRecordsPerSecond(double recordsPerSecond) { this.recordsPerSecond = recordsPerSecond; }
+    public List<RecordWriteResult> getResults() { return results; }
+    public void setResults(List<RecordWriteResult> results) { this.results = results; }
+}
\ No newline at end of file
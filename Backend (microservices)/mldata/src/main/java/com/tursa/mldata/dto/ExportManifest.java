@@ -0,0 +1,32 @@
+package com.tursa.mldata.dto;
+
+import java.util.List;
+import java.util.Map;
+
+// manifest.json of one training-data export: records with from < timestamp <= to, one directory per shard
+public class ExportManifest {
+    private String runId;
+    private String from;
+    private String to;
+    private long rows;
+    private Map<String, String> columns;  // Column file (without .npy) -> NumPy dtype
+    private List<ShardExport> shards;
+    private long elapsedMillis;
+
+    public ExportManifest() {}
+
+    public String getRunId() { return runId; }
+    public void setRunId(String runId) { this.runId = runId; }
+    public String getFrom() { return from; }
+    public void setFrom(String from) { this.from = from; }
+    public String getTo() { return to; }
+    public void setTo(String to) { this.to = to; }
+    public long getRows() { return rows; }
+    public void setRows(long rows) { this.rows = rows; }
+    public Map<String, String> getColumns() { return columns; }
+    public void setColumns(Map<String, String> columns) { this.columns = columns; }
+    public List<ShardExport> getShards() { return shards; }
+    public void setShards(List<ShardExport> shards) { this.shards = shards; }
+    public long getElapsedMillis() { return elapsedMillis; }
+    public void setElapsedMillis(long elapsedMillis) { this.elapsedMillis = elapsedMillis; }
+}
\ No newline at end of file
@@ -0,0 +1,23 @@
+package com.tursa.mldata.dto;
+
+import com.tursa.mldata.entity.HealthRecord;
+
+import java.util.List;
+
+// One page of a full health_records scan; pass nextPageToken back to continue (null = last page)
+public class HealthRecordPage {
+    private List<HealthRecord> records;
+    private String nextPageToken;
+
+    public HealthRecordPage() {}
+
+    public HealthRecordPage(List<HealthRecord> records, String nextPageToken) {
+        this.records = records;
+        this.nextPageToken = nextPageToken;
+    }
+
+    public List<HealthRecord> getRecords() { return records; }
+    public void setRecords(List<HealthRecord> records) { this.records = records; }
+    public String getNextPageToken() { return nextPageToken; }
+    public void setNextPageToken(String nextPageToken) { this.nextPageToken = nextPageToken; }
+}
\ No newline at end of file
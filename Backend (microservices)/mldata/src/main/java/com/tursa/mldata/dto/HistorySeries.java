@@ -0,0 +1,35 @@
+package com.tursa.mldata.dto;
+
+import java.util.List;
+import java.util.Map;
+
+// Downsampled vitals for charting: per metric, at most `points` points chosen by LTTB over [from, to)
+public class HistorySeries {
+    private String userId;
+    private String from;
+    private String to;
+    private long recordsScanned;
+    private Map<String, List<SeriesPoint>> series;
+
+    public HistorySeries() {}
+
+    public HistorySeries(String userId, String from, String to, long recordsScanned,
+                         Map<String, List<SeriesPoint>> series) {
+        this.userId = userId;
+        this.from = from;
+        this.to = to;
+        this.recordsScanned = recordsScanned;
+        this.series = series;
+    }
+
+    public String getUserId() { return userId; }
+    public void setUserId(String userId) { this.userId = userId; }
+    public String getFrom() { return from; }
+    public void setFrom(String from) { this.from = from; }
+    public String getTo() { return to; }
+    public void setTo(String to) { this.to = to; }
+    public long getRecordsScanned() { return recordsScanned; }
+    public void setRecordsScanned(long recordsScanned) { this.recordsScanned = recordsScanned; }
+    public Map<String, List<SeriesPoint>> getSeries() { return series; }
+    public void setSeries(Map<String, List<SeriesPoint>> series) { this.series = series; }
+}
\ No newline at end of file
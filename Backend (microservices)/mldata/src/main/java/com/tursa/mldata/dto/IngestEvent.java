@@ -0,0 +1,60 @@
+package com.tursa.mldata.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+// One line of the NDJSON reply to POST /health/records/stream: a failed input line, a periodic progress
+// report, or the final summary
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class IngestEvent {
+    private String type;  // "error", "progress" or "done"
+    private Long line;    // 1-based input line of an error
+    private String error;
+    private Long linesRead;
+    private Long saved;
+    private Long failed;
+    private Integer inFlight;
+    private Long elapsedMillis;
+    private Double recordsPerSecond;
+
+    public IngestEvent() {}
+
+    public static IngestEvent error(long line, String error) {
+        IngestEvent event = new IngestEvent();
+        event.type = "error";
+        event.line = line;
+        event.error = error;
+        return event;
+    }
+
+    public static IngestEvent progress(String type, long linesRead, long saved, long failed, int inFlight,
+                                       long elapsedMillis) {
+        IngestEvent event = new IngestEvent();
+        event.type = type;
+        event.linesRead = linesRead;
+        event.saved = saved;
+        event.failed = failed;
+        event.inFlight = inFlight;
+        event.elapsedMillis = elapsedMillis;
+        event.recordsPerSecond = elapsedMillis > 0 ? saved * 1000.0 / elapsedMillis : 0.0;
+        return event;
+    }
+
+    public String getType() { return type; }
+    public void setType(String type) { this.type = type; }
+    public Long getLine() { return line; }
+    public void setLine(Long line) { this.line = line; }
+    public String getError() { return error; }
+    public void setError(String error) { this.error = error; }
+    public Long getLinesRead() { return linesRead; }
+    public void setLinesRead(Long linesRead) { this.linesRead = linesRead; }
+    public Long getSaved() { return saved; }
+    public void setSaved(Long saved) { this.saved = saved; }
+    public Long getFailed() { return failed; }
+    public void setFailed(Long failed) { this.failed = failed; }
+    public Integer getInFlight() { return inFlight; }
+    public void setInFlight(Integer inFlight) { this.inFlight = inFlight; }
+    public Long getElapsedMillis() { return elapsedMillis; }
+    public void setElapsedMillis(Long elapsedMillis) { this.elapsedMillis = elapsedMillis; }
+    public Double getRecordsPerSecond() { return recordsPerSecond; }
+    public void setRecordsPerSecond(Double recordsPerSecond) { this.recordsPerSecond = recordsPerSecond; }
+}
\ No newline at end of file
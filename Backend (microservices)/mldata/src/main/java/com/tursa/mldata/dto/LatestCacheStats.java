@@ -0,0 +1,44 @@
+package com.tursa.mldata.dto;
+
+// Latest-record cache health: ready=false means reads are going to Firestore (listener down or resyncing)
+public class LatestCacheStats {
+    private boolean enabled;
+    private boolean ready;
+    private int entries;
+    private long cacheReads;      // Served from memory
+    private long fallbackReads;   // Document gets while the cache was not ready
+    private long listenerFailures;
+    private long nextRetryMillis;  // Epoch millis of the scheduled re-registration, 0 = none pending
+    private String lastError;
+
+    public LatestCacheStats() {}
+
+    public LatestCacheStats(boolean enabled, boolean ready, int entries, long cacheReads, long fallbackReads,
+                            long listenerFailures, long nextRetryMillis, String lastError) {
+        this.enabled = enabled;
+        this.ready = ready;
+        this.entries = entries;
+        this.cacheReads = cacheReads;
+        this.fallbackReads = fallbackReads;
+        this.listenerFailures = listenerFailures;
+        this.nextRetryMillis = nextRetryMillis;
+        this.lastError = lastError;
+    }
+
+    public boolean isEnabled() { return enabled; }
+    public void setEnabled(boolean enabled) { this.enabled = enabled; }
+    public boolean isReady() { return ready; }
+    public void setReady(boolean ready) { this.ready = ready; }
+    public int getEntries() { return entries; }
+    public void setEntries(int entries) { this.entries = entries; }
+    public long getCacheReads() { return cacheReads; }
+    public void setCacheReads(long cacheReads) { this.cacheReads = cacheReads; }
+    public long getFallbackReads() { return fallbackReads; }
+    public void setFallbackReads(long fallbackReads) { this.fallbackReads = fallbackReads; }
+    public long getListenerFailures() { return listenerFailures; }
+    public void setListenerFailures(long listenerFailures) { this.listenerFailures = listenerFailures; }
+    public long getNextRetryMillis() { return nextRetryMillis; }
+    public void setNextRetryMillis(long nextRetryMillis) { this.nextRetryMillis = nextRetryMillis; }
+    public String getLastError() { return lastError; }
+    public void setLastError(String lastError) { this.lastError = lastError; }
+}
\ No newline at end of file
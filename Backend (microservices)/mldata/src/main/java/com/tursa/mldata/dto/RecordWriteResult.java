@@ -0,0 +1,40 @@
+package com.tursa.mldata.dto;
+
+// Outcome of one item in a bulk write, in request order
+public class RecordWriteResult {
+    private int index;
+    private String status;  // "saved" or "failed"
+    private String documentId;
+    private String updateTime;
+    private String error;
+
+    public RecordWriteResult() {}
+
+    public static RecordWriteResult saved(int index, String documentId, String updateTime) {
+        RecordWriteResult result = new RecordWriteResult();
+        result.index = index;
+        result.status = "saved";
+        result.documentId = documentId;
+        result.updateTime = updateTime;
+        return result;
+    }
+
+    public static RecordWriteResult failed(int index, String error) {
+        RecordWriteResult result = new RecordWriteResult();
+        result.index = index;
+        result.status = "failed";
+        result.error = error;
+        return result;
+    }
+
+    public int getIndex() { return index; }
+    public void setIndex(int index) { this.index = index; }
+    public String getStatus() { return status; }
+    public void setStatus(String status) { this.status = status; }
+    public String getDocumentId() { return documentId; }
+    public void setDocumentId(String documentId) { this.documentId = documentId; }
+    public String getUpdateTime() { return updateTime; }
+    public void setUpdateTime(String updateTime) { this.updateTime = updateTime; }
+    public String getError() { return error; }
+    public void setError(String error) { this.error = error; }
+}
\ No newline at end of file
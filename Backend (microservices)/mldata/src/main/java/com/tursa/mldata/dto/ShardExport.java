@@ -0,0 +1,26 @@
+package com.tursa.mldata.dto;
+
+public class ShardExport {
+    private int shard;
+    private long rows;
+    private int users;
+    private String directory;
+
+    public ShardExport() {}
+
+    public ShardExport(int shard, long rows, int users, String directory) {
+        this.shard = shard;
+        this.rows = rows;
+        this.users = users;
+        this.directory = directory;
+    }
+
+    public int getShard() { return shard; }
+    public void setShard(int shard) { this.shard = shard; }
+    public long getRows() { return rows; }
+    public void setRows(long rows) { this.rows = rows; }
+    public int getUsers() { return users; }
+    public void setUsers(int users) { this.users = users; }
+    public String getDirectory() { return directory; }
+    public void setDirectory(String directory) { this.directory = directory; }
+}
\ No newline at end of file
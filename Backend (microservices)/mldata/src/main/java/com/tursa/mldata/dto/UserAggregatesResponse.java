@@ -0,0 +1,34 @@
+package com.tursa.mldata.dto;
+
+import java.util.Map;
+
+// GET /health/aggregates: per vital (chol, trestbps, thalach, bmi) over all time and the rolling windows
+public class UserAggregatesResponse {
+    private String userId;
+    private String updated;
+    private Map<String, AggregateSummary> allTime;
+    private Map<String, AggregateSummary> last7Days;
+    private Map<String, AggregateSummary> last30Days;
+
+    public UserAggregatesResponse() {}
+
+    public UserAggregatesResponse(String userId, String updated, Map<String, AggregateSummary> allTime,
+                                  Map<String, AggregateSummary> last7Days, Map<String, AggregateSummary> last30Days) {
+        this.userId = userId;
+        this.updated = updated;
+        this.allTime = allTime;
+        this.last7Days = last7Days;
+        this.last30Days = last30Days;
+    }
+
+    public String getUserId() { return userId; }
+    public void setUserId(String userId) { this.userId = userId; }
+    public String getUpdated() { return updated; }
+    public void setUpdated(String updated) { this.updated = updated; }
+    public Map<String, AggregateSummary> getAllTime() { return allTime; }
+    public void setAllTime(Map<String, AggregateSummary> allTime) { this.allTime = allTime; }
+    public Map<String, AggregateSummary> getLast7Days() { return last7Days; }
+    public void setLast7Days(Map<String, AggregateSummary> last7Days) { this.last7Days = last7Days; }
+    public Map<String, AggregateSummary> getLast30Days() { return last30Days; }
+    public void setLast30Days(Map<String, AggregateSummary> last30Days) { this.last30Days = last30Days; }
+}
\ No newline at end of file
@@ -0,0 +1,52 @@
+package com.tursa.mldata.dto;
+
+// Write-behind journal health: alert on queueDepth and drainLagMillis growing
+public class WriteBehindStats {
+    private boolean enabled;
+    private long queueDepth;      // Acknowledged records not yet in Firestore
+    private long queueBytes;
+    private long drainLagMillis;  // Age of the oldest undrained record
+    private int segments;
+    private long drained;
+    private long retries;
+    private long deadLettered;
+    private long lastDrainMillis;  // Epoch millis of the last drained batch, 0 = none yet
+    private String lastError;
+
+    public WriteBehindStats() {}
+
+    public WriteBehindStats(boolean enabled, long queueDepth, long queueBytes, long drainLagMillis, int segments,
+                            long drained, long retries, long deadLettered, long lastDrainMillis, String lastError) {
+        this.enabled = enabled;
+        this.queueDepth = queueDepth;
+        this.queueBytes = queueBytes;
+        this.drainLagMillis = drainLagMillis;
+        this.segments = segments;
+        this.drained = drained;
+        this.retries = retries;
+        this.deadLettered = deadLettered;
+        this.lastDrainMillis = lastDrainMillis;
+        this.lastError = lastError;
+    }
+
+    public boolean isEnabled() { return enabled; }
+    public void setEnabled(boolean enabled) { this.enabled = enabled; }
+    public long getQueueDepth() { return queueDepth; }
+    public void setQueueDepth(long queueDepth) { this.queueDepth = queueDepth; }
+    public long getQueueBytes() { return queueBytes; }
+    public void setQueueBytes(long queueBytes) { this.queueBytes = queueBytes; }
+    public long getDrainLagMillis() { return drainLagMillis; }
+    public void setDrainLagMillis(long drainLagMillis) { this.drainLagMillis = drainLagMillis; }
+    public int getSegments() { return segments; }
+    public void setSegments(int segments) { this.segments = segments; }
+    public long getDrained() { return drained; }
+    public void setDrained(long drained) { this.drained = drained; }
+    public long getRetries() { return retries; }
+    public void setRetries(long retries) { this.retries = retries; }
+    public long getDeadLettered() { return deadLettered; }
+    public void setDeadLettered(long deadLettered) { this.deadLettered = deadLettered; }
+    public long getLastDrainMillis() { return lastDrainMillis; }
+    public void setLastDrainMillis(long lastDrainMillis) { this.lastDrainMillis = lastDrainMillis; }
+    public String getLastError() { return lastError; }
+    public void setLastError(String lastError) { this.lastError = lastError; }
+}
\ No newline at end of file
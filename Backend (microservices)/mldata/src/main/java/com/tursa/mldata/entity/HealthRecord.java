@@ -1,5 +1,6 @@
 package com.tursa.mldata.entity;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.google.cloud.Timestamp;
 import com.google.cloud.firestore.annotation.ServerTimestamp;
 
@@ -17,6 +18,10 @@ public class HealthRecord {
     private Integer cp;
     private String userId;  // NEW: For filtering
 
+    // NEW: Write shard for the (shard, timestamp) index; assigned on save, never part of the API
+    @JsonIgnore
+    private Integer shard;
+
     // NEW: Auto-set by Firestore on save
     @ServerTimestamp
     private Timestamp timestamp;  // Changed type
@@ -67,4 +72,6 @@ public class HealthRecord {
     public void setUserId(String userId) { this.userId = userId; }
     public Timestamp getTimestamp() { return timestamp; }
     public void setTimestamp(Timestamp timestamp) { this.timestamp = timestamp; }
+    public Integer getShard() { return shard; }
+    public void setShard(Integer shard) { this.shard = shard; }
 }
\ No newline at end of file
@@ -0,0 +1,59 @@
+package com.tursa.mldata.entity;
+
+import com.google.cloud.Timestamp;
+
+// Running moments of one vital sign; stored inside user_aggregates documents
+public class MetricStats {
+
+    private long count;
+    private double sum;
+    private double sumSq;
+    private Double min;
+    private Double max;
+    private Double last;
+    private Timestamp lastTime;
+
+    public MetricStats() {}
+
+    public void add(double value, Timestamp time) {
+        count++;
+        sum += value;
+        sumSq += value * value;
+        min = min == null ? value : Math.min(min, value);
+        max = max == null ? value : Math.max(max, value);
+        if (lastTime == null || (time != null && time.compareTo(lastTime) >= 0)) {
+            last = value;
+            lastTime = time;
+        }
+    }
+
+    public void merge(MetricStats other) {
+        if (other == null || other.count == 0) {
+            return;
+        }
+        count += other.count;
+        sum += other.sum;
+        sumSq += other.sumSq;
+        min = min == null ? other.min : Math.min(min, other.min);
+        max = max == null ? other.max : Math.max(max, other.max);
+        if (lastTime == null || (other.lastTime != null && other.lastTime.compareTo(lastTime) >= 0)) {
+            last = other.last;
+            lastTime = other.lastTime;
+        }
+    }
+
+    public long getCount() { return count; }
+    public void setCount(long count) { this.count = count; }
+    public double getSum() { return sum; }
+    public void setSum(double sum) { this.sum = sum; }
+    public double getSumSq() { return sumSq; }
+    public void setSumSq(double sumSq) { this.sumSq = sumSq; }
+    public Double getMin() { return min; }
+    public void setMin(Double min) { this.min = min; }
+    public Double getMax() { return max; }
+    public void setMax(Double max) { this.max = max; }
+    public Double getLast() { return last; }
+    public void setLast(Double last) { this.last = last; }
+    public Timestamp getLastTime() { return lastTime; }
+    public void setLastTime(Timestamp lastTime) { this.lastTime = lastTime; }
+}
\ No newline at end of file
@@ -0,0 +1,99 @@
+package com.tursa.mldata.entity;
+
+import com.google.cloud.Timestamp;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+// user_aggregates/{userId}: all-time stats per vital plus one bucket per UTC day for the last 30 days,
+// so rolling 7- and 30-day windows are a sum over at most 30 buckets of the same document
+public class UserAggregates {
+
+    public static final List<String> METRICS = List.of("chol", "trestbps", "thalach", "bmi");
+    public static final int WINDOW_DAYS = 30;
+
+    private String userId;
+    private Timestamp updated;
+    private Map<String, MetricStats> total = new HashMap<>();
+    private Map<String, Map<String, MetricStats>> days = new HashMap<>();  // Epoch day -> metric -> stats
+
+    public UserAggregates() {}
+
+    public UserAggregates(String userId) {
+        this.userId = userId;
+    }
+
+    // Folds one record in, bucketed by the day of its write time
+    public void add(HealthRecord record, Timestamp time) {
+        Map<String, MetricStats> day = days.computeIfAbsent(Long.toString(epochDay(time)), k -> new HashMap<>());
+        addValue("chol", record.getChol(), time, day);
+        addValue("trestbps", record.getTrestbps(), time, day);
+        addValue("thalach", record.getThalach(), time, day);
+        addValue("bmi", record.getBmi(), time, day);
+        if (updated == null || time.compareTo(updated) > 0) {
+            updated = time;
+        }
+    }
+
+    public void merge(UserAggregates other) {
+        for (Map.Entry<String, MetricStats> entry : other.total.entrySet()) {
+            total.computeIfAbsent(entry.getKey(), k -> new MetricStats()).merge(entry.getValue());
+        }
+        for (Map.Entry<String, Map<String, MetricStats>> dayEntry : other.days.entrySet()) {
+            Map<String, MetricStats> day = days.computeIfAbsent(dayEntry.getKey(), k -> new HashMap<>());
+            for (Map.Entry<String, MetricStats> entry : dayEntry.getValue().entrySet()) {
+                day.computeIfAbsent(entry.getKey(), k -> new MetricStats()).merge(entry.getValue());
+            }
+        }
+        if (other.updated != null && (updated == null || other.updated.compareTo(updated) > 0)) {
+            updated = other.updated;
+        }
+    }
+
+    // Drops day buckets that can no longer fall inside the 30-day window
+    public void prune(long today) {
+        Iterator<String> it = days.keySet().iterator();
+        while (it.hasNext()) {
+            if (Long.parseLong(it.next()) <= today - WINDOW_DAYS) {
+                it.remove();
+            }
+        }
+    }
+
+    // Stats over the given number of most recent days (today included); metric -> stats
+    public Map<String, MetricStats> window(long today, int windowDays) {
+        Map<String, MetricStats> window = new HashMap<>();
+        for (Map.Entry<String, Map<String, MetricStats>> dayEntry : days.entrySet()) {
+            if (Long.parseLong(dayEntry.getKey()) <= today - windowDays) {
+                continue;
+            }
+            for (Map.Entry<String, MetricStats> entry : dayEntry.getValue().entrySet()) {
+                window.computeIfAbsent(entry.getKey(), k -> new MetricStats()).merge(entry.getValue());
+            }
+        }
+        return window;
+    }
+
+    public static long epochDay(Timestamp time) {
+        return Math.floorDiv(time.getSeconds(), 86_400L);
+    }
+
+    private void addValue(String metric, Double value, Timestamp time, Map<String, MetricStats> day) {
+        if (value == null || value.isNaN()) {
+            return;
+        }
+        total.computeIfAbsent(metric, k -> new MetricStats()).add(value, time);
+        day.computeIfAbsent(metric, k -> new MetricStats()).add(value, time);
+    }
+
+    public String getUserId() { return userId; }
+    public void setUserId(String userId) { this.userId = userId; }
+    public Timestamp getUpdated() { return updated; }
+    public void setUpdated(Timestamp updated) { this.updated = updated; }
+    public Map<String, MetricStats> getTotal() { return total; }
+    public void setTotal(Map<String, MetricStats> total) { this.total = total; }
+    public Map<String, Map<String, MetricStats>> getDays() { return days; }
+    public void setDays(Map<String, Map<String, MetricStats>> days) { this.days = days; }
+}
\ No newline at end of file
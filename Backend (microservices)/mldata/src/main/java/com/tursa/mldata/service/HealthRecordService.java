@@ -1,31 +1,191 @@
 package com.tursa.mldata.service;
 
 import com.google.api.core.ApiFuture;
+import com.google.cloud.Timestamp;
 import com.google.cloud.firestore.*;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.tursa.mldata.dto.BatchWriteResponse;
+import com.tursa.mldata.dto.HealthRecordPage;
+import com.tursa.mldata.dto.HistorySeries;
+import com.tursa.mldata.dto.RecordWriteResult;
+import com.tursa.mldata.dto.SeriesPoint;
+import com.tursa.mldata.dto.UserAggregatesResponse;
 import com.tursa.mldata.entity.HealthRecord;
+import com.tursa.mldata.entity.UserAggregates;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
 
 @Service
 public class HealthRecordService {
 
+    private static final Set<String> METRICS = Set.of("age", "thalach", "oldpeak", "trestbps", "bmi", "chol",
+            "ca", "thal", "restecg", "cp");
+
     private final Firestore firestore;
+    private final MedbotNotifier medbotNotifier;
+    private final LatestRecordStore latestRecordStore;
+    private final TimestampShards shards;
+    private final UserAggregateStore userAggregateStore;
+
+    @Value("${health.records.batch.max-in-flight:500}")  // Writes handed to the BulkWriter but not yet acknowledged
+    private int maxInFlight;
+
+    @Value("${health.records.history.scan-page-size:1000}")  // Records per read while downsampling
+    private int historyScanPageSize;
+
+    @Value("${health.records.history.downsample-ratio:4}")  // MinMax preselection slots per output point
+    private int downsampleRatio;
 
-    public HealthRecordService(Firestore firestore) {
+    @Value("${health.records.batch.throttling:true}")  // BulkWriter's 500/50/5 ramp-up; turn off against the emulator
+    private boolean throttling;
+
+    public HealthRecordService(Firestore firestore, MedbotNotifier medbotNotifier, LatestRecordStore latestRecordStore,
+                               TimestampShards shards, UserAggregateStore userAggregateStore) {
         this.firestore = firestore;
+        this.medbotNotifier = medbotNotifier;
+        this.latestRecordStore = latestRecordStore;
+        this.shards = shards;
+        this.userAggregateStore = userAggregateStore;
     }
 
     public String saveRecord(HealthRecord record) throws ExecutionException, InterruptedException {
         // No manual timestamp—@ServerTimestamp auto-sets
+        // The record, the user's latest projection (same server timestamp) and a pending-aggregate marker
+        // commit atomically as one blind batch, so concurrent saves for a user never contend on the
+        // user_aggregates read-modify-write. The marker is then applied (merged into the aggregates and
+        // deleted, exactly once) right away; if that fails or is interrupted, UserAggregateStore's repair
+        // sweep applies it later. Either way the record is in the aggregates and the save reports success.
+        shards.assign(record);
         DocumentReference docRef = firestore.collection("health_records").document();
-        ApiFuture<WriteResult> future = docRef.set(record);
-        return "Record saved at: " + future.get().getUpdateTime();
+        DocumentReference marker = userAggregateStore.pendingMarker(docRef.getId());
+        WriteBatch batch = firestore.batch();
+        batch.set(docRef, record);
+        batch.set(latestRecordStore.projection(record.getUserId()), record);
+        batch.set(marker, UserAggregateStore.markerFor(docRef, record.getUserId()));
+        Timestamp savedAt = batch.commit().get().get(0).getUpdateTime();  // Commit time = the server timestamp
+
+        try {
+            userAggregateStore.applyPending(marker).get();
+        } catch (ExecutionException e) {
+            System.err.println("Aggregate merge for " + record.getUserId() + " deferred to the repair sweep: " + e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();  // The record is saved; the repair sweep applies the marker
+        }
+        medbotNotifier.recordChanged(record.getUserId());
+        return "Record saved at: " + savedAt;
+    }
+
+    // Writes every record through one BulkWriter (parallel batched commits, retries on contention/unavailable)
+    // with at most maxInFlight unacknowledged writes; null items fail without stopping the rest.
+    // Results come back in request order. BulkWriter commits are not atomic across documents, so each
+    // user's latest projection is advanced once at the end to their newest saved record, and their
+    // aggregates get one merged delta.
+    public BatchWriteResponse saveRecords(List<HealthRecord> records) throws InterruptedException {
+        return saveRecords(records, null);
+    }
+
+    // documentIds (parallel to records) pin each record's document id, so replaying a write is idempotent;
+    // null = new random ids
+    public BatchWriteResponse saveRecords(List<HealthRecord> records, List<String> documentIds) throws InterruptedException {
+        return saveRecords(records, documentIds, Set.of());
+    }
+
+    // alreadyAggregated: document ids being rewritten whose earlier write was already folded into the user
+    // aggregates; they still advance the latest projection but are not counted twice
+    public BatchWriteResponse saveRecords(List<HealthRecord> records, List<String> documentIds,
+                                          Set<String> alreadyAggregated) throws InterruptedException {
+        long start = System.nanoTime();
+        List<ApiFuture<WriteResult>> futures = new ArrayList<>(records.size());
+        List<DocumentReference> docRefs = new ArrayList<>(records.size());
+        List<RecordWriteResult> results = new ArrayList<>(records.size());
+        Map<String, HealthRecord> newest = new LinkedHashMap<>();
+        Map<String, UserAggregates> deltas = new LinkedHashMap<>();
+        int saved = 0;
+        Semaphore inFlight = new Semaphore(Math.max(1, maxInFlight));
+        BulkWriter bulkWriter = firestore.bulkWriter(BulkWriterOptions.builder()
+                .setThrottlingEnabled(throttling)
+                .build());
+        try {
+            for (HealthRecord record : records) {
+                if (record == null) {
+                    futures.add(null);
+                    docRefs.add(null);
+                    continue;
+                }
+                if (!inFlight.tryAcquire()) {
+                    bulkWriter.flush();  // Send the partially filled batch so its permits come back
+                    inFlight.acquire();
+                }
+                shards.assign(record);
+                CollectionReference collection = firestore.collection("health_records");
+                DocumentReference docRef = documentIds != null
+                        ? collection.document(documentIds.get(futures.size()))
+                        : collection.document();
+                ApiFuture<WriteResult> future = bulkWriter.set(docRef, record);
+                future.addListener(inFlight::release, MoreExecutors.directExecutor());
+                futures.add(future);
+                docRefs.add(docRef);
+            }
+        } finally {
+            bulkWriter.close();  // Flushes and waits for every pending write
+
+            // Even when the loop was interrupted, whatever was handed to the writer is now committed, so
+            // the projection, aggregates and medbot must hear about it before the exception propagates
+            for (int i = 0; i < futures.size(); i++) {
+                ApiFuture<WriteResult> future = futures.get(i);
+                if (future == null) {
+                    results.add(RecordWriteResult.failed(i, "Record is null"));
+                    continue;
+                }
+                try {
+                    WriteResult result = future.get();  // Already complete: close() waited for it
+                    results.add(RecordWriteResult.saved(i, docRefs.get(i).getId(), result.getUpdateTime().toString()));
+                    HealthRecord record = records.get(i);
+                    record.setTimestamp(result.getUpdateTime());  // The server timestamp is the commit time
+                    newest.merge(record.getUserId(), record,
+                            (a, b) -> b.getTimestamp().compareTo(a.getTimestamp()) > 0 ? b : a);
+                    if (!alreadyAggregated.contains(docRefs.get(i).getId())) {
+                        deltas.computeIfAbsent(record.getUserId(), UserAggregates::new).add(record, record.getTimestamp());
+                    }
+                    saved++;
+                } catch (ExecutionException e) {
+                    Throwable cause = e.getCause() != null ? e.getCause() : e;
+                    results.add(RecordWriteResult.failed(i, cause.getMessage()));
+                }
+            }
+            latestRecordStore.advanceAll(newest.values());
+            userAggregateStore.mergeAll(deltas.values());
+            for (String userId : newest.keySet()) {
+                medbotNotifier.recordChanged(userId);
+            }
+        }
+
+        long elapsedNanos = System.nanoTime() - start;
+        double seconds = elapsedNanos / 1e9;
+        return new BatchWriteResponse(saved, records.size() - saved, TimeUnit.NANOSECONDS.toMillis(elapsedNanos),
+                seconds > 0 ? saved / seconds : 0.0, results);
     }
 
     //retrive data for the ml model
+    // Served from the latest_records projection (memory hit or one get); users written before the
+    // projection existed fall back to the indexed query once and get their projection filled in
     public HealthRecord getLatestRecord(String userId) throws ExecutionException, InterruptedException {
+        HealthRecord latest = latestRecordStore.get(userId);
+        if (latest != null) {
+            return latest;
+        }
+
         Query query = firestore.collection("health_records")
                 .whereEqualTo("userId", userId)
                 .orderBy("timestamp", Query.Direction.DESCENDING)
@@ -36,10 +196,256 @@ public class HealthRecordService {
 
         if (!snapshot.isEmpty()) {
             QueryDocumentSnapshot document = snapshot.getDocuments().get(0);  // First (latest) document
-            return document.toObject(HealthRecord.class);
+            HealthRecord record = document.toObject(HealthRecord.class);
+            latestRecordStore.advance(record);  // Best effort; the read does not wait for it
+            return record;
         }
         return null;  // No record found
     }
 
-}
+    // Full-collection scan in document-id order (no composite index needed); the token is the last document id
+    public HealthRecordPage getRecordPage(String pageToken, int pageSize) throws ExecutionException, InterruptedException {
+        Query query = firestore.collection("health_records")
+                .orderBy(FieldPath.documentId())
+                .limit(pageSize);
+        if (pageToken != null && !pageToken.isEmpty()) {
+            query = query.startAfter(pageToken);
+        }
+        return toPage(query, pageSize);
+    }
+
+    // One user's records oldest first within optional [from, to) bounds, served by the same userId/timestamp
+    // index as getLatestRecord. Keyset pagination: the token is the (timestamp, id) of the previous page's
+    // last record, so resuming costs no extra read and stays stable while new records are appended.
+    public HealthRecordPage getHistoryPage(String userId, Timestamp from, Timestamp to, String pageToken, int pageSize) throws ExecutionException, InterruptedException {
+        Query query = firestore.collection("health_records")
+                .whereEqualTo("userId", userId);
+        if (from != null) {
+            query = query.whereGreaterThanOrEqualTo("timestamp", from);
+        }
+        if (to != null) {
+            query = query.whereLessThan("timestamp", to);
+        }
+        query = query.orderBy("timestamp", Query.Direction.ASCENDING)
+                .orderBy(FieldPath.documentId())
+                .limit(pageSize);
+        List<QueryDocumentSnapshot> documents = startAfterCursor(query, pageToken).get().get().getDocuments();
+        List<HealthRecord> records = new ArrayList<>(documents.size());
+        for (QueryDocumentSnapshot document : documents) {
+            records.add(document.toObject(HealthRecord.class));
+        }
+        String nextPageToken = documents.size() == pageSize ? cursorToken(documents.get(documents.size() - 1)) : null;
+        return new HealthRecordPage(records, nextPageToken);
+    }
+
+    // Chart-ready history: every record in [from, to) is streamed page by page through one MinMaxLTTB
+    // downsampler per metric, so memory depends on `points`, not on how many readings the range holds.
+    // from defaults to the user's first record, to to now.
+    public HistorySeries getHistorySeries(String userId, Timestamp from, Timestamp to, List<String> metrics, int points) throws ExecutionException, InterruptedException {
+        if (to == null) {
+            to = Timestamp.now();
+        }
+        if (from == null) {
+            HealthRecordPage first = getHistoryPage(userId, null, to, null, 1);
+            if (first.getRecords().isEmpty()) {
+                return new HistorySeries(userId, null, to.toString(), 0, new LinkedHashMap<>());
+            }
+            from = first.getRecords().get(0).getTimestamp();
+        }
+        long fromMillis = toMillis(from);
+        long toMillis = toMillis(to);
+        Map<String, SeriesDownsampler> samplers = new LinkedHashMap<>();
+        for (String metric : metrics) {
+            samplers.put(metric, new SeriesDownsampler(fromMillis, toMillis, points, downsampleRatio));
+        }
+
+        long scanned = 0;
+        String pageToken = null;
+        do {
+            HealthRecordPage page = getHistoryPage(userId, from, to, pageToken, historyScanPageSize);
+            for (HealthRecord record : page.getRecords()) {
+                scanned++;
+                if (record.getTimestamp() == null) {
+                    continue;
+                }
+                long t = toMillis(record.getTimestamp());
+                for (Map.Entry<String, SeriesDownsampler> entry : samplers.entrySet()) {
+                    Number value = metricValue(record, entry.getKey());
+                    if (value != null) {
+                        entry.getValue().add(t, value.doubleValue());
+                    }
+                }
+            }
+            pageToken = page.getNextPageToken();
+        } while (pageToken != null);
+
+        Map<String, List<SeriesPoint>> series = new LinkedHashMap<>();
+        for (Map.Entry<String, SeriesDownsampler> entry : samplers.entrySet()) {
+            series.put(entry.getKey(), entry.getValue().result());
+        }
+        return new HistorySeries(userId, from.toString(), to.toString(), scanned, series);
+    }
+
+    // Recomputes a user's aggregates from their full history (for users whose records predate aggregates).
+    // Records saved while the scan runs may be missed; re-run after ingestion for that user is quiet.
+    public UserAggregatesResponse rebuildAggregates(String userId) throws ExecutionException, InterruptedException {
+        UserAggregates aggregates = new UserAggregates(userId);
+        String pageToken = null;
+        do {
+            HealthRecordPage page = getHistoryPage(userId, null, null, pageToken, historyScanPageSize);
+            for (HealthRecord record : page.getRecords()) {
+                if (record.getTimestamp() != null) {
+                    aggregates.add(record, record.getTimestamp());
+                }
+            }
+            pageToken = page.getNextPageToken();
+        } while (pageToken != null);
+        aggregates.prune(UserAggregates.epochDay(Timestamp.now()));
+        userAggregateStore.reference(userId).set(aggregates).get();
+        return userAggregateStore.summary(userId);
+    }
+
+    // Chartable HealthRecord fields; null for an unknown metric name
+    private static Number metricValue(HealthRecord record, String metric) {
+        switch (metric) {
+            case "age": return record.getAge();
+            case "thalach": return record.getThalach();
+            case "oldpeak": return record.getOldpeak();
+            case "trestbps": return record.getTrestbps();
+            case "bmi": return record.getBmi();
+            case "chol": return record.getChol();
+            case "ca": return record.getCa();
+            case "thal": return record.getThal();
+            case "restecg": return record.getRestecg();
+            case "cp": return record.getCp();
+            default: return null;
+        }
+    }
+
+    public static boolean isMetric(String metric) {
+        return METRICS.contains(metric);
+    }
+
+    // Records written after the given server time, oldest first; lets consumers refresh incrementally
+    // from a watermark. One (shard, timestamp) query per shard, merged; the page token is the (timestamp,
+    // document id) of the last record returned.
+    //
+    // Each shard is asked for twice its fair share of the page rather than a full page. The merged order
+    // is only known to be complete up to the smallest last key among shards that filled their limit
+    // (a shard that came back short has nothing more before it), so the page is cut there, and at
+    // pageSize. With random shard assignment that still fills whole pages while reading about
+    // 2 x pageSize documents instead of count x pageSize.
+    public HealthRecordPage getRecordsSince(Timestamp since, String pageToken, int pageSize) throws ExecutionException, InterruptedException {
+        int perShard = Math.max(1, (int) Math.ceil(2.0 * pageSize / shards.count()));
+        List<ApiFuture<QuerySnapshot>> pending = new ArrayList<>(shards.count());
+        for (int shard = 0; shard < shards.count(); shard++) {
+            Query query = firestore.collection("health_records")
+                    .whereEqualTo("shard", shard)
+                    .whereGreaterThan("timestamp", since)
+                    .orderBy("timestamp", Query.Direction.ASCENDING)
+                    .orderBy(FieldPath.documentId())
+                    .limit(perShard);
+            pending.add(startAfterCursor(query, pageToken).get());
+        }
+        Comparator<DocumentSnapshot> order = Comparator.comparing((DocumentSnapshot d) -> d.getTimestamp("timestamp"))
+                .thenComparing(DocumentSnapshot::getId);
+        List<QueryDocumentSnapshot> documents = new ArrayList<>();
+        DocumentSnapshot horizon = null;  // Last key up to which every shard has been read
+        for (ApiFuture<QuerySnapshot> future : pending) {
+            List<QueryDocumentSnapshot> shardDocuments = future.get().getDocuments();
+            documents.addAll(shardDocuments);
+            if (shardDocuments.size() == perShard) {
+                DocumentSnapshot last = shardDocuments.get(perShard - 1);
+                if (horizon == null || order.compare(last, horizon) < 0) {
+                    horizon = last;
+                }
+            }
+        }
+        documents.sort(order);
+
+        List<HealthRecord> records = new ArrayList<>(Math.min(pageSize, documents.size()));
+        boolean more = false;
+        for (QueryDocumentSnapshot document : documents) {
+            if (records.size() == pageSize || (horizon != null && order.compare(document, horizon) > 0)) {
+                more = true;
+                break;
+            }
+            records.add(document.toObject(HealthRecord.class));
+        }
+        // The horizon shard may hold more past its last key even when nothing was cut
+        more |= horizon != null;
+        String nextPageToken = more && !records.isEmpty()
+                ? cursorToken(documents.get(records.size() - 1))
+                : null;
+        return new HealthRecordPage(records, nextPageToken);
+    }
+
+    // Migration to the sharded layout: gives every record written before it a shard, so the sharded
+    // changes feed sees them. Scans in document-id order; safe to re-run.
+    public String assignMissingShards(int pageSize) throws ExecutionException, InterruptedException {
+        long scanned = 0;
+        long assigned = 0;
+        BulkWriter bulkWriter = firestore.bulkWriter();
+        try {
+            String lastId = null;
+            while (true) {
+                Query query = firestore.collection("health_records")
+                        .orderBy(FieldPath.documentId())
+                        .limit(pageSize);
+                if (lastId != null) {
+                    query = query.startAfter(lastId);
+                }
+                List<QueryDocumentSnapshot> documents = query.get().get().getDocuments();
+                for (QueryDocumentSnapshot document : documents) {
+                    scanned++;
+                    if (document.get("shard") == null) {
+                        HealthRecord record = new HealthRecord();
+                        shards.assign(record);
+                        bulkWriter.update(document.getReference(), "shard", record.getShard());
+                        assigned++;
+                    }
+                }
+                if (documents.size() < pageSize) {
+                    break;
+                }
+                lastId = documents.get(documents.size() - 1).getId();
+                bulkWriter.flush().get();  // Keep at most one page of updates outstanding
+            }
+        } finally {
+            bulkWriter.close();
+        }
+        return "Assigned shards to " + assigned + " of " + scanned + " records";
+    }
+
+    // Keyset cursor for queries ordered by (timestamp, document id): "<RFC 3339 timestamp>|<document id>"
+    private static String cursorToken(DocumentSnapshot last) {
+        return last.getTimestamp("timestamp") + "|" + last.getId();
+    }
+
+    private static Query startAfterCursor(Query query, String pageToken) {
+        if (pageToken == null || pageToken.isEmpty()) {
+            return query;
+        }
+        int separator = pageToken.indexOf('|');
+        if (separator < 0) {
+            throw new IllegalArgumentException("Unknown page token: " + pageToken);
+        }
+        return query.startAfter(Timestamp.parseTimestamp(pageToken.substring(0, separator)),
+                pageToken.substring(separator + 1));
+    }
+
+    private static long toMillis(Timestamp timestamp) {
+        return timestamp.getSeconds() * 1000L + timestamp.getNanos() / 1_000_000;
+    }
+
+    private HealthRecordPage toPage(Query query, int pageSize) throws ExecutionException, InterruptedException {
+        List<QueryDocumentSnapshot> documents = query.get().get().getDocuments();
+        List<HealthRecord> records = new ArrayList<>(documents.size());
+        for (QueryDocumentSnapshot document : documents) {
+            records.add(document.toObject(HealthRecord.class));
+        }
+        String nextPageToken = documents.size() == pageSize ? documents.get(documents.size() - 1).getId() : null;
+        return new HealthRecordPage(records, nextPageToken);
+    }
 
+}
\ No newline at end of file
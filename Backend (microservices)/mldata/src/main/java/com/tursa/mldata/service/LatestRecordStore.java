@@ -0,0 +1,230 @@
+package com.tursa.mldata.service;
+
+import com.google.api.core.ApiFuture;
+import com.google.cloud.Timestamp;
+import com.google.cloud.firestore.*;
+import com.tursa.mldata.dto.BackfillResult;
+import com.tursa.mldata.dto.LatestCacheStats;
+import com.tursa.mldata.entity.HealthRecord;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Per-user "latest" projection: latest_records/{userId} holds a copy of the user's newest health record,
+// so the latest-record read is one document get instead of a userId/timestamp query. The whole projection
+// collection is mirrored in memory by a snapshot listener, which makes the common read a map hit; until
+// the listener's first snapshot arrives reads go to Firestore. A failed listener drops the cache (rather
+// than serve a frozen one) and is re-registered with exponential backoff; its first snapshot refills the
+// cache. State is exposed through stats() (GET /health/record/latest/cache).
+@Component
+public class LatestRecordStore {
+
+    private static final String COLLECTION = "latest_records";
+
+    private final Firestore firestore;
+    private final ConcurrentHashMap<String, HealthRecord> cache = new ConcurrentHashMap<>();
+    private volatile boolean cacheReady;
+    private volatile boolean running;
+    private ListenerRegistration registration;
+    private ScheduledExecutorService restarter;
+    private long backoffMs;  // Guarded by this
+    private volatile long nextRetryMillis;
+    private volatile String lastError;
+    private final AtomicLong cacheReads = new AtomicLong();
+    private final AtomicLong fallbackReads = new AtomicLong();
+    private final AtomicLong listenerFailures = new AtomicLong();
+
+    @Value("${health.latest.cache-enabled:true}")
+    private boolean cacheEnabled;
+
+    @Value("${health.latest.backfill-page-size:1000}")
+    private int backfillPageSize;
+
+    @Value("${health.latest.listener-min-backoff-ms:1000}")
+    private long minBackoffMs;
+
+    @Value("${health.latest.listener-max-backoff-ms:60000}")
+    private long maxBackoffMs;
+
+    public LatestRecordStore(Firestore firestore) {
+        this.firestore = firestore;
+    }
+
+    @PostConstruct
+    public void init() {
+        if (!cacheEnabled) {
+            return;
+        }
+        restarter = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "latest-record-listener-restart");
+            t.setDaemon(true);
+            return t;
+        });
+        running = true;
+        listen();
+    }
+
+    @PreDestroy
+    public synchronized void shutdown() {
+        running = false;
+        if (restarter != null) {
+            restarter.shutdownNow();
+        }
+        if (registration != null) {
+            registration.remove();
+        }
+    }
+
+    private synchronized void listen() {
+        if (!running) {
+            return;
+        }
+        nextRetryMillis = 0;
+        registration = firestore.collection(COLLECTION).addSnapshotListener((snapshot, error) -> {
+            if (error != null) {
+                onListenerFailure(error);
+                return;
+            }
+            for (DocumentChange change : snapshot.getDocumentChanges()) {
+                String userId = change.getDocument().getId();
+                if (change.getType() == DocumentChange.Type.REMOVED) {
+                    cache.remove(userId);
+                } else {
+                    cache.put(userId, change.getDocument().toObject(HealthRecord.class));
+                }
+            }
+            if (!cacheReady) {
+                synchronized (this) {
+                    backoffMs = 0;  // In sync again
+                }
+            }
+            cacheReady = true;
+        });
+    }
+
+    // The listener is dead once it reports an error: fall back to document gets and re-register later
+    private synchronized void onListenerFailure(Exception error) {
+        System.err.println("Latest-record listener failed: " + error.getMessage());
+        listenerFailures.incrementAndGet();
+        lastError = error.getMessage();
+        cacheReady = false;
+        cache.clear();
+        if (!running) {
+            return;
+        }
+        backoffMs = backoffMs == 0 ? minBackoffMs : Math.min(maxBackoffMs, backoffMs * 2);
+        nextRetryMillis = System.currentTimeMillis() + backoffMs;
+        restarter.schedule(this::listen, backoffMs, TimeUnit.MILLISECONDS);
+    }
+
+    public LatestCacheStats stats() {
+        return new LatestCacheStats(cacheEnabled, cacheReady, cache.size(), cacheReads.get(), fallbackReads.get(),
+                listenerFailures.get(), nextRetryMillis, lastError);
+    }
+
+    public DocumentReference projection(String userId) {
+        return firestore.collection(COLLECTION).document(userId);
+    }
+
+    // Memory hit once the listener is in sync, otherwise one document get; null if no projection exists
+    public HealthRecord get(String userId) throws ExecutionException, InterruptedException {
+        if (cacheReady) {
+            cacheReads.incrementAndGet();
+            return cache.get(userId);
+        }
+        fallbackReads.incrementAndGet();
+        DocumentSnapshot document = projection(userId).get().get();
+        return document.exists() ? document.toObject(HealthRecord.class) : null;
+    }
+
+    // Moves the projection forward to the given record (which must carry its server timestamp) unless it
+    // already holds something at least as new; used where the record write itself could not be batched
+    public ApiFuture<Boolean> advance(HealthRecord record) {
+        DocumentReference docRef = projection(record.getUserId());
+        return firestore.runTransaction(transaction -> {
+            DocumentSnapshot current = transaction.get(docRef).get();
+            Timestamp stored = current.exists() ? current.getTimestamp("timestamp") : null;
+            if (stored != null && record.getTimestamp() != null && stored.compareTo(record.getTimestamp()) >= 0) {
+                return false;
+            }
+            transaction.set(docRef, record);
+            return true;
+        });
+    }
+
+    // Advances every given record's projection, a page of transactions at a time; returns how many moved.
+    // Failures are logged and skipped: the records themselves are already saved
+    public long advanceAll(Collection<HealthRecord> records) throws InterruptedException {
+        long written = 0;
+        List<ApiFuture<Boolean>> pending = new ArrayList<>(backfillPageSize);
+        for (HealthRecord record : records) {
+            pending.add(advance(record));
+            if (pending.size() == backfillPageSize) {
+                written += completed(pending);
+            }
+        }
+        return written + completed(pending);
+    }
+
+    // Rebuilds projections from existing health_records: one pass in document-id order keeping each
+    // user's newest record, then a guarded advance per user. Safe to re-run and to run alongside writes.
+    public BackfillResult backfill() throws ExecutionException, InterruptedException {
+        long start = System.currentTimeMillis();
+        Map<String, HealthRecord> newest = new HashMap<>();
+        long scanned = 0;
+        String lastId = null;
+        while (true) {
+            Query query = firestore.collection("health_records")
+                    .orderBy(FieldPath.documentId())
+                    .limit(backfillPageSize);
+            if (lastId != null) {
+                query = query.startAfter(lastId);
+            }
+            List<QueryDocumentSnapshot> documents = query.get().get().getDocuments();
+            for (QueryDocumentSnapshot document : documents) {
+                scanned++;
+                HealthRecord record = document.toObject(HealthRecord.class);
+                if (record.getUserId() == null || record.getTimestamp() == null) {
+                    continue;
+                }
+                newest.merge(record.getUserId(), record,
+                        (a, b) -> b.getTimestamp().compareTo(a.getTimestamp()) > 0 ? b : a);
+            }
+            if (documents.size() < backfillPageSize) {
+                break;
+            }
+            lastId = documents.get(documents.size() - 1).getId();
+        }
+
+        long written = advanceAll(newest.values());
+        return new BackfillResult(scanned, newest.size(), written, System.currentTimeMillis() - start);
+    }
+
+    private static long completed(List<ApiFuture<Boolean>> pending) throws InterruptedException {
+        long written = 0;
+        for (ApiFuture<Boolean> future : pending) {
+            try {
+                if (future.get()) {
+                    written++;
+                }
+            } catch (ExecutionException e) {
+                System.err.println("Failed to advance latest-record projection: " + e.getCause());
+            }
+        }
+        pending.clear();
+        return written;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,89 @@
+package com.tursa.mldata.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Best-effort notification to medbot that a user's health data changed, so it can drop cached
+// predictions. Disabled when medbot.url is empty; failures never affect the write path.
+// Calls run on a small dedicated pool with connect/read timeouts and a bounded queue: a slow medbot
+// delays only notifications, and when the queue is full further ones are dropped (medbot's own cache
+// expiry and feature-store poll cover them). A user already waiting in the queue is not queued twice.
+@Component
+public class MedbotNotifier {
+
+    private RestTemplate restTemplate;
+    private ThreadPoolExecutor executor;
+    private final Set<String> queued = ConcurrentHashMap.newKeySet();
+
+    @Value("${medbot.url:}")
+    private String medbotUrl;
+
+    @Value("${medbot.notify.connect-timeout-ms:1000}")
+    private int connectTimeoutMs;
+
+    @Value("${medbot.notify.read-timeout-ms:2000}")
+    private int readTimeoutMs;
+
+    @Value("${medbot.notify.threads:4}")
+    private int threads;
+
+    @Value("${medbot.notify.queue-size:10000}")
+    private int queueSize;
+
+    @PostConstruct
+    public void init() {
+        if (medbotUrl == null || medbotUrl.isBlank()) {
+            return;
+        }
+        SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory();
+        requestFactory.setConnectTimeout(connectTimeoutMs);
+        requestFactory.setReadTimeout(readTimeoutMs);
+        restTemplate = new RestTemplate(requestFactory);
+
+        AtomicInteger ids = new AtomicInteger();
+        executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueSize), r -> {
+                    Thread t = new Thread(r, "medbot-notifier-" + ids.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                }, new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    public void recordChanged(String userId) {
+        if (executor == null || userId == null || !queued.add(userId)) {
+            return;
+        }
+        try {
+            executor.execute(() -> {
+                queued.remove(userId);  // A change after this point needs its own notification
+                try {
+                    restTemplate.delete(medbotUrl + "/api/cache/patients/{patientId}", userId);
+                } catch (Exception e) {
+                    System.err.println("Failed to notify medbot for user " + userId + ": " + e.getMessage());
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            queued.remove(userId);
+            System.err.println("Medbot notification queue full, skipped user " + userId);
+        }
+    }
+}
\ No newline at end of file
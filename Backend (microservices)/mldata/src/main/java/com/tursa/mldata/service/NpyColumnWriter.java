@@ -0,0 +1,85 @@
+package com.tursa.mldata.service;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+// Streams one 1-D column into a NumPy .npy file (format 1.0, little-endian), which numpy.load(...,
+// mmap_mode="r") maps without copying. The row count is only known at the end, so values are written
+// after a fixed 128-byte header that is filled in on close.
+final class NpyColumnWriter implements Closeable {
+
+    private static final int HEADER_BYTES = 128;
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocate(1 << 16).order(ByteOrder.LITTLE_ENDIAN);
+    private final String descr;
+    private long rows;
+
+    // descr is the NumPy dtype string, e.g. "<f4", "<i8"
+    NpyColumnWriter(Path path, String descr) throws IOException {
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.WRITE);
+        this.channel.position(HEADER_BYTES);
+        this.descr = descr;
+    }
+
+    void putFloat(float value) throws IOException {
+        ensure(4);
+        buffer.putFloat(value);
+        rows++;
+    }
+
+    void putInt(int value) throws IOException {
+        ensure(4);
+        buffer.putInt(value);
+        rows++;
+    }
+
+    void putLong(long value) throws IOException {
+        ensure(8);
+        buffer.putLong(value);
+        rows++;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            drain();
+            String dict = "{'descr': '" + descr + "', 'fortran_order': False, 'shape': (" + rows + ",), }";
+            StringBuilder header = new StringBuilder(dict);
+            while (header.length() < HEADER_BYTES - 10 - 1) {
+                header.append(' ');
+            }
+            header.append('\n');
+            ByteBuffer prefix = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            prefix.put((byte) 0x93).put("NUMPY".getBytes(StandardCharsets.US_ASCII)).put((byte) 1).put((byte) 0);
+            prefix.putShort((short) (HEADER_BYTES - 10));
+            prefix.put(header.toString().getBytes(StandardCharsets.US_ASCII));
+            prefix.flip();
+            channel.write(prefix, 0);
+            channel.force(false);
+        } finally {
+            channel.close();
+        }
+    }
+
+    private void ensure(int bytes) throws IOException {
+        if (buffer.remaining() < bytes) {
+            drain();
+        }
+    }
+
+    private void drain() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,207 @@
+package com.tursa.mldata.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.google.api.core.ApiFuture;
+import com.google.cloud.firestore.BulkWriter;
+import com.google.cloud.firestore.BulkWriterOptions;
+import com.google.cloud.firestore.DocumentReference;
+import com.google.cloud.firestore.Firestore;
+import com.google.cloud.firestore.WriteResult;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.tursa.mldata.dto.IngestEvent;
+import com.tursa.mldata.entity.HealthRecord;
+import com.tursa.mldata.entity.UserAggregates;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Newline-delimited JSON ingestion for device feeds. The body is read one line at a time and each record
+// goes straight into a BulkWriter; once maxInFlight writes are unacknowledged the reader stops pulling
+// from the socket, so a slow Firestore pushes back on the sender through TCP instead of filling the heap.
+// Memory stays flat regardless of body size: one line, the in-flight writes and per-user latest/aggregates.
+// Failed lines and periodic progress are written back as NDJSON while the upload is still running.
+@Service
+public class RecordStreamIngestor {
+
+    private final Firestore firestore;
+    private final MedbotNotifier medbotNotifier;
+    private final LatestRecordStore latestRecordStore;
+    private final TimestampShards shards;
+    private final UserAggregateStore userAggregateStore;
+    private final ObjectMapper objectMapper;
+    private final ObjectReader recordReader;
+
+    @Value("${health.records.batch.max-in-flight:500}")
+    private int maxInFlight;
+
+    @Value("${health.records.batch.throttling:true}")
+    private boolean throttling;
+
+    @Value("${health.records.stream.progress-every:10000}")  // Lines between progress events
+    private long progressEvery;
+
+    @Value("${health.records.stream.max-line-chars:65536}")  // Longer lines are rejected without being buffered
+    private int maxLineChars;
+
+    public RecordStreamIngestor(Firestore firestore, MedbotNotifier medbotNotifier,
+                                LatestRecordStore latestRecordStore, TimestampShards shards,
+                                UserAggregateStore userAggregateStore, ObjectMapper objectMapper) {
+        this.firestore = firestore;
+        this.medbotNotifier = medbotNotifier;
+        this.latestRecordStore = latestRecordStore;
+        this.shards = shards;
+        this.userAggregateStore = userAggregateStore;
+        this.objectMapper = objectMapper;
+        this.recordReader = objectMapper.readerFor(HealthRecord.class);
+    }
+
+    // Records without a userId get defaultUserId, as in POST /health/record
+    public void ingest(InputStream body, OutputStream out, String defaultUserId) throws IOException, InterruptedException {
+        long start = System.nanoTime();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8), 64 * 1024);
+        StringBuilder line = new StringBuilder();
+        Semaphore inFlight = new Semaphore(Math.max(1, maxInFlight));
+        // Write outcomes arrive on Firestore threads; only the request thread touches the response
+        ConcurrentLinkedQueue<IngestEvent> writeErrors = new ConcurrentLinkedQueue<>();
+        AtomicLong saved = new AtomicLong();
+        AtomicLong writeFailures = new AtomicLong();
+        // Newest saved record per user, for the latest projection once the writer is drained
+        ConcurrentHashMap<String, HealthRecord> newest = new ConcurrentHashMap<>();
+        // Per-user aggregate deltas, merged into user_aggregates once at the end
+        ConcurrentHashMap<String, UserAggregates> deltas = new ConcurrentHashMap<>();
+        long lineNumber = 0;
+        long parseFailures = 0;
+
+        BulkWriter bulkWriter = firestore.bulkWriter(BulkWriterOptions.builder()
+                .setThrottlingEnabled(throttling)
+                .build());
+        try {
+            while (readLine(reader, line)) {
+                lineNumber++;
+                String error = null;
+                HealthRecord record = null;
+                if (line.length() > maxLineChars) {
+                    error = "Line exceeds " + maxLineChars + " characters";
+                } else if (!line.toString().isBlank()) {
+                    try {
+                        record = recordReader.readValue(line.toString());
+                        if (record == null) {
+                            error = "Record is null";
+                        }
+                    } catch (IOException e) {
+                        error = "Invalid JSON: " + e.getOriginalMessage();
+                    }
+                }
+                if (error != null) {
+                    parseFailures++;
+                    writeEvent(out, IngestEvent.error(lineNumber, error));
+                } else if (record != null) {
+                    if (record.getUserId() == null || record.getUserId().isBlank()) {
+                        record.setUserId(defaultUserId);
+                    }
+                    if (!inFlight.tryAcquire()) {
+                        bulkWriter.flush();  // Send the partially filled batch so its permits come back
+                        inFlight.acquire();
+                    }
+                    shards.assign(record);
+                    DocumentReference docRef = firestore.collection("health_records").document();
+                    ApiFuture<WriteResult> future = bulkWriter.set(docRef, record);
+                    long writtenLine = lineNumber;
+                    HealthRecord written = record;
+                    future.addListener(() -> {
+                        inFlight.release();
+                        try {
+                            written.setTimestamp(future.get().getUpdateTime());  // Server timestamp = commit time
+                            newest.merge(written.getUserId(), written,
+                                    (a, b) -> b.getTimestamp().compareTo(a.getTimestamp()) > 0 ? b : a);
+                            deltas.compute(written.getUserId(), (userId, delta) -> {
+                                UserAggregates updated = delta != null ? delta : new UserAggregates(userId);
+                                updated.add(written, written.getTimestamp());
+                                return updated;
+                            });
+                            saved.incrementAndGet();
+                        } catch (ExecutionException | InterruptedException e) {
+                            Throwable cause = e.getCause() != null ? e.getCause() : e;
+                            writeFailures.incrementAndGet();
+                            writeErrors.add(IngestEvent.error(writtenLine, cause.getMessage()));
+                        }
+                    }, MoreExecutors.directExecutor());
+                }
+
+                drainErrors(out, writeErrors);
+                if (progressEvery > 0 && lineNumber % progressEvery == 0) {
+                    writeEvent(out, IngestEvent.progress("progress", lineNumber, saved.get(),
+                            parseFailures + writeFailures.get(), maxInFlight - inFlight.availablePermits(),
+                            elapsedMillis(start)));
+                }
+            }
+        } finally {
+            try {
+                bulkWriter.close();  // Flushes and waits for every pending write
+            } finally {
+                // Runs even if reading the body or writing an event failed (e.g. the client went away):
+                // close() has committed every queued record, so the projection and aggregates must follow
+                latestRecordStore.advanceAll(newest.values());
+                userAggregateStore.mergeAll(deltas.values());
+                for (String userId : newest.keySet()) {
+                    medbotNotifier.recordChanged(userId);
+                }
+            }
+        }
+
+        drainErrors(out, writeErrors);
+        writeEvent(out, IngestEvent.progress("done", lineNumber, saved.get(), parseFailures + writeFailures.get(),
+                0, elapsedMillis(start)));
+    }
+
+    // Reads up to the next '\n' into line (a trailing '\r' is dropped); characters past maxLineChars + 1 are
+    // discarded so an unterminated or oversized line cannot grow the buffer. Returns false at end of input.
+    private boolean readLine(BufferedReader reader, StringBuilder line) throws IOException {
+        line.setLength(0);
+        int c = reader.read();
+        if (c == -1) {
+            return false;
+        }
+        while (c != -1 && c != '\n') {
+            if (line.length() <= maxLineChars) {
+                line.append((char) c);
+            }
+            c = reader.read();
+        }
+        int last = line.length() - 1;
+        if (last >= 0 && line.charAt(last) == '\r') {
+            line.setLength(last);
+        }
+        return true;
+    }
+
+    private void drainErrors(OutputStream out, ConcurrentLinkedQueue<IngestEvent> writeErrors) throws IOException {
+        IngestEvent event;
+        while ((event = writeErrors.poll()) != null) {
+            writeEvent(out, event);
+        }
+    }
+
+    private void writeEvent(OutputStream out, IngestEvent event) throws IOException {
+        out.write(objectMapper.writeValueAsBytes(event));
+        out.write('\n');
+        out.flush();
+    }
+
+    private static long elapsedMillis(long start) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,144 @@
+package com.tursa.mldata.service;
+
+import com.tursa.mldata.dto.SeriesPoint;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Streaming MinMaxLTTB for one metric over a fixed time range. Points arrive in time order and only the
+// min and max of each of points * ratio equal-width time slots are kept (plus the first and last point),
+// so memory is bounded by the requested resolution, not by the history length. Largest-triangle-three-
+// buckets then picks the final points from that preselection.
+class SeriesDownsampler {
+
+    private final long from;
+    private final double slotWidth;
+    private final int points;
+
+    // Per slot: the lowest and highest sample seen (time and value); filled marks non-empty slots
+    private final long[] minT;
+    private final double[] minV;
+    private final long[] maxT;
+    private final double[] maxV;
+    private final boolean[] filled;
+
+    private long firstT = Long.MIN_VALUE;
+    private double firstV;
+    private long lastT;
+    private double lastV;
+    private long count;
+
+    SeriesDownsampler(long fromMillis, long toMillis, int points, int ratio) {
+        int slots = Math.max(1, points * ratio);
+        this.from = fromMillis;
+        this.slotWidth = Math.max(1.0, (double) (toMillis - fromMillis) / slots);
+        this.points = points;
+        this.minT = new long[slots];
+        this.minV = new double[slots];
+        this.maxT = new long[slots];
+        this.maxV = new double[slots];
+        this.filled = new boolean[slots];
+    }
+
+    void add(long t, double v) {
+        if (Double.isNaN(v)) {
+            return;
+        }
+        count++;
+        if (firstT == Long.MIN_VALUE) {
+            firstT = t;
+            firstV = v;
+        }
+        lastT = t;
+        lastV = v;
+        int slot = (int) Math.max(0, Math.min(filled.length - 1, (long) ((t - from) / slotWidth)));
+        if (!filled[slot]) {
+            filled[slot] = true;
+            minT[slot] = t;
+            minV[slot] = v;
+            maxT[slot] = t;
+            maxV[slot] = v;
+        } else if (v < minV[slot]) {
+            minT[slot] = t;
+            minV[slot] = v;
+        } else if (v > maxV[slot]) {
+            maxT[slot] = t;
+            maxV[slot] = v;
+        }
+    }
+
+    long count() {
+        return count;
+    }
+
+    List<SeriesPoint> result() {
+        List<SeriesPoint> preselected = new ArrayList<>();
+        if (count == 0) {
+            return preselected;
+        }
+        preselected.add(new SeriesPoint(firstT, firstV));
+        for (int slot = 0; slot < filled.length; slot++) {
+            if (!filled[slot]) {
+                continue;
+            }
+            // Min and max in time order; a slot with one distinct sample contributes it once
+            boolean minFirst = minT[slot] <= maxT[slot];
+            addDistinct(preselected, minFirst ? minT[slot] : maxT[slot], minFirst ? minV[slot] : maxV[slot]);
+            addDistinct(preselected, minFirst ? maxT[slot] : minT[slot], minFirst ? maxV[slot] : minV[slot]);
+        }
+        addDistinct(preselected, lastT, lastV);
+        return lttb(preselected, points);
+    }
+
+    private static void addDistinct(List<SeriesPoint> points, long t, double v) {
+        SeriesPoint previous = points.get(points.size() - 1);
+        if (previous.getT() != t || previous.getV() != v) {
+            points.add(new SeriesPoint(t, v));
+        }
+    }
+
+    // Sveinn Steinarsson's LTTB: keep the first and last point, and from each of threshold - 2 buckets the
+    // point forming the largest triangle with the previously kept point and the next bucket's average
+    static List<SeriesPoint> lttb(List<SeriesPoint> data, int threshold) {
+        int n = data.size();
+        if (threshold >= n || threshold < 3) {
+            return data;
+        }
+        List<SeriesPoint> sampled = new ArrayList<>(threshold);
+        double every = (double) (n - 2) / (threshold - 2);
+        int a = 0;
+        sampled.add(data.get(0));
+        for (int i = 0; i < threshold - 2; i++) {
+            int avgStart = (int) Math.floor((i + 1) * every) + 1;
+            int avgEnd = Math.min(n, (int) Math.floor((i + 2) * every) + 1);
+            double avgT = 0;
+            double avgV = 0;
+            for (int j = avgStart; j < avgEnd; j++) {
+                avgT += data.get(j).getT();
+                avgV += data.get(j).getV();
+            }
+            int avgCount = Math.max(1, avgEnd - avgStart);
+            avgT /= avgCount;
+            avgV /= avgCount;
+
+            int rangeStart = (int) Math.floor(i * every) + 1;
+            int rangeEnd = (int) Math.floor((i + 1) * every) + 1;
+            double aT = data.get(a).getT();
+            double aV = data.get(a).getV();
+            double maxArea = -1;
+            int next = rangeStart;
+            for (int j = rangeStart; j < rangeEnd; j++) {
+                double area = Math.abs((aT - avgT) * (data.get(j).getV() - aV)
+                        - (aT - data.get(j).getT()) * (avgV - aV));
+                if (area > maxArea) {
+                    maxArea = area;
+                    next = j;
+                }
+            }
+            sampled.add(data.get(next));
+            a = next;
+        }
+        sampled.add(data.get(n - 1));
+        return sampled;
+    }
+}
\ No newline at end of file
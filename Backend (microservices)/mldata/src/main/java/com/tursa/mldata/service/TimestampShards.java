@@ -0,0 +1,40 @@
+package com.tursa.mldata.service;
+
+import com.tursa.mldata.entity.HealthRecord;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+// Write layout for health_records. The server timestamp only ever grows, so a single-field index on it
+// sends every write to the tail of one key range, which Firestore caps at roughly 500 writes/s. Each
+// record gets a random shard in [0, count) and the collection is indexed on (shard, timestamp) instead,
+// with the raw timestamp exempted (firestore.indexes.json): writes spread over count key ranges and
+// time-ordered reads across users fan out one query per shard. Per-user reads keep their (userId,
+// timestamp) index, whose userId prefix already spreads writes. There is no unsharded mode: with the raw
+// timestamp index exempted a plain timestamp range query would fail, so count must be at least 1
+// (1 = a single key range, the old write ceiling, on the same index).
+@Component
+public class TimestampShards {
+
+    @Value("${health.records.timestamp-shards:16}")
+    private int count;
+
+    @PostConstruct
+    public void init() {
+        if (count < 1) {
+            throw new IllegalArgumentException("health.records.timestamp-shards must be at least 1");
+        }
+    }
+
+    public int count() {
+        return count;
+    }
+
+    public void assign(HealthRecord record) {
+        if (record.getShard() == null) {
+            record.setShard(ThreadLocalRandom.current().nextInt(count));
+        }
+    }
+}
\ No newline at end of file
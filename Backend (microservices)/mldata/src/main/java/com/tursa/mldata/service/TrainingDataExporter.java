@@ -0,0 +1,268 @@
+package com.tursa.mldata.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.cloud.Timestamp;
+import com.google.cloud.firestore.FieldPath;
+import com.google.cloud.firestore.Firestore;
+import com.google.cloud.firestore.Query;
+import com.google.cloud.firestore.QueryDocumentSnapshot;
+import com.tursa.mldata.dto.ExportManifest;
+import com.tursa.mldata.dto.ShardExport;
+import com.tursa.mldata.entity.HealthRecord;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+// Incremental training-data export: every record written since the last export, as one NumPy .npy file
+// per column (the 10 model features as float32 with NaN = missing, timestamp as int64 epoch micros,
+// userId as an int32 code into users.json), one directory per write shard, exported in parallel.
+// Runs land in <dir>/<runId>/ and only become visible, and move the watermark, once every shard is
+// written: the watermark is the `to` of <dir>/latest.json. `to` trails the clock by a safety margin so a
+// commit still in flight at export time cannot slip in behind the watermark. Shard queries cannot see
+// records without a shard field, so a run refuses to start (and move the watermark past them) while any
+// remain; a failed run deletes its partial directory.
+@Service
+public class TrainingDataExporter {
+
+    private static final DateTimeFormatter RUN_ID = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss-SSS");
+    private static final String[] FEATURES = {"age", "thalach", "oldpeak", "trestbps", "bmi", "chol",
+            "ca", "thal", "restecg", "cp"};
+
+    private final Firestore firestore;
+    private final TimestampShards shards;
+    private final ObjectMapper objectMapper;
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    @Value("${health.export.dir:exports}")
+    private String exportDir;
+
+    @Value("${health.export.page-size:1000}")
+    private int pageSize;
+
+    @Value("${health.export.parallelism:0}")  // 0 = one thread per shard, capped at the core count
+    private int parallelism;
+
+    @Value("${health.export.safety-seconds:60}")
+    private long safetySeconds;
+
+    public TrainingDataExporter(Firestore firestore, TimestampShards shards, ObjectMapper objectMapper) {
+        this.firestore = firestore;
+        this.shards = shards;
+        this.objectMapper = objectMapper;
+    }
+
+    // Weekly retraining dump; disabled unless health.export.cron is set
+    @Scheduled(cron = "${health.export.cron:-}", zone = "UTC")
+    public void scheduledExport() {
+        try {
+            export();
+        } catch (Exception e) {
+            System.err.println("Scheduled training-data export failed: " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+
+    public ExportManifest export() throws IOException, InterruptedException, ExecutionException {
+        if (!running.compareAndSet(false, true)) {
+            throw new IllegalStateException("A training-data export is already in progress");
+        }
+        try {
+            return run();
+        } finally {
+            running.set(false);
+        }
+    }
+
+    public ExportManifest latest() throws IOException {
+        Path latest = Paths.get(exportDir).resolve("latest.json");
+        return Files.isRegularFile(latest) ? objectMapper.readValue(latest.toFile(), ExportManifest.class) : null;
+    }
+
+    private ExportManifest run() throws IOException, InterruptedException, ExecutionException {
+        long start = System.currentTimeMillis();
+        ExportManifest previous = latest();
+        Timestamp from = previous != null ? Timestamp.parseTimestamp(previous.getTo()) : Timestamp.ofTimeSecondsAndNanos(0, 0);
+        Timestamp to = Timestamp.ofTimeSecondsAndNanos(Timestamp.now().getSeconds() - safetySeconds, 0);
+        // Time-ordered, and unique even for runs started within the same millisecond
+        String runId = ZonedDateTime.now(ZoneOffset.UTC).format(RUN_ID) + "-" + UUID.randomUUID().toString().substring(0, 8);
+        requireAllSharded();
+
+        Path root = Paths.get(exportDir);
+        Path partial = root.resolve(runId + ".partial");
+        Files.createDirectories(partial);
+        try {
+            return publish(runId, root, partial, from, to, start);
+        } catch (IOException | InterruptedException | ExecutionException | RuntimeException e) {
+            deleteRecursively(partial);
+            throw e;
+        }
+    }
+
+    private ExportManifest publish(String runId, Path root, Path partial, Timestamp from, Timestamp to, long start) throws IOException, InterruptedException, ExecutionException {
+        List<Integer> shardIds = new ArrayList<>();
+        for (int shard = 0; shard < shards.count(); shard++) {
+            shardIds.add(shard);
+        }
+        int threads = parallelism > 0 ? parallelism : Math.min(shardIds.size(), Runtime.getRuntime().availableProcessors());
+        ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, threads));
+        List<ShardExport> exports = new ArrayList<>(shardIds.size());
+        try {
+            List<Future<ShardExport>> futures = new ArrayList<>(shardIds.size());
+            for (int shard : shardIds) {
+                futures.add(pool.submit(() -> exportShard(shard, from, to, partial)));
+            }
+            for (Future<ShardExport> future : futures) {
+                exports.add(future.get());
+            }
+        } finally {
+            pool.shutdownNow();
+            pool.awaitTermination(1, TimeUnit.MINUTES);
+        }
+
+        long rows = 0;
+        for (ShardExport export : exports) {
+            rows += export.getRows();
+            export.setDirectory(root.resolve(runId).resolve(Paths.get(export.getDirectory()).getFileName()).toString());
+        }
+        ExportManifest manifest = new ExportManifest();
+        manifest.setRunId(runId);
+        manifest.setFrom(from.toString());
+        manifest.setTo(to.toString());
+        manifest.setRows(rows);
+        manifest.setColumns(columns());
+        manifest.setShards(exports);
+        manifest.setElapsedMillis(System.currentTimeMillis() - start);
+        objectMapper.writerWithDefaultPrettyPrinter().writeValue(partial.resolve("manifest.json").toFile(), manifest);
+
+        // Publish the run, then move the watermark; a crash before either leaves the old watermark in place
+        Files.move(partial, root.resolve(runId), StandardCopyOption.ATOMIC_MOVE);
+        Path latestTemp = root.resolve("latest.json.tmp");
+        objectMapper.writerWithDefaultPrettyPrinter().writeValue(latestTemp.toFile(), manifest);
+        Files.move(latestTemp, root.resolve("latest.json"), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return manifest;
+    }
+
+    // Records written before the shard migration have no shard field and are invisible to every shard
+    // query. Total first, shards second: a record written in between only raises the shard side.
+    private void requireAllSharded() throws ExecutionException, InterruptedException {
+        long total = firestore.collection("health_records").count().get().get().getCount();
+        long sharded = 0;
+        for (int shard = 0; shard < shards.count(); shard++) {
+            sharded += firestore.collection("health_records").whereEqualTo("shard", shard).count().get().get().getCount();
+        }
+        if (sharded < total) {
+            throw new IllegalStateException((total - sharded) + " health records have no write shard; run POST "
+                    + "/health/records/shards/backfill before exporting");
+        }
+    }
+
+    private static void deleteRecursively(Path dir) {
+        if (!Files.exists(dir)) {
+            return;
+        }
+        try (Stream<Path> paths = Files.walk(dir)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> {
+                try {
+                    Files.delete(path);
+                } catch (IOException e) {
+                    System.err.println("Could not delete " + path + ": " + e.getMessage());
+                }
+            });
+        } catch (IOException e) {
+            System.err.println("Could not clean up " + dir + ": " + e.getMessage());
+        }
+    }
+
+    // Streams one shard's records in (timestamp, id) order straight into its column files
+    private ShardExport exportShard(int shard, Timestamp from, Timestamp to, Path runDir) throws Exception {
+        Path dir = runDir.resolve(String.format("shard-%02d", shard));
+        Files.createDirectories(dir);
+        Map<String, Integer> userCodes = new LinkedHashMap<>();
+        NpyColumnWriter[] features = new NpyColumnWriter[FEATURES.length];
+        long rows = 0;
+        try (NpyColumnWriter timestamps = new NpyColumnWriter(dir.resolve("timestamp.npy"), "<i8");
+             NpyColumnWriter users = new NpyColumnWriter(dir.resolve("user.npy"), "<i4")) {
+            for (int i = 0; i < FEATURES.length; i++) {
+                features[i] = new NpyColumnWriter(dir.resolve(FEATURES[i] + ".npy"), "<f4");
+            }
+
+            Query query = firestore.collection("health_records")
+                    .whereEqualTo("shard", shard)
+                    .whereGreaterThan("timestamp", from)
+                    .whereLessThanOrEqualTo("timestamp", to)
+                    .orderBy("timestamp", Query.Direction.ASCENDING)
+                    .orderBy(FieldPath.documentId())
+                    .limit(pageSize);
+            QueryDocumentSnapshot last = null;
+            while (true) {
+                Query page = last == null ? query : query.startAfter(last.getTimestamp("timestamp"), last.getId());
+                List<QueryDocumentSnapshot> documents = page.get().get().getDocuments();
+                for (QueryDocumentSnapshot document : documents) {
+                    HealthRecord record = document.toObject(HealthRecord.class);
+                    Timestamp timestamp = record.getTimestamp();
+                    timestamps.putLong(timestamp.getSeconds() * 1_000_000L + timestamp.getNanos() / 1_000);
+                    users.putInt(userCodes.computeIfAbsent(String.valueOf(record.getUserId()), k -> userCodes.size()));
+                    features[0].putFloat(value(record.getAge()));
+                    features[1].putFloat(value(record.getThalach()));
+                    features[2].putFloat(value(record.getOldpeak()));
+                    features[3].putFloat(value(record.getTrestbps()));
+                    features[4].putFloat(value(record.getBmi()));
+                    features[5].putFloat(value(record.getChol()));
+                    features[6].putFloat(value(record.getCa()));
+                    features[7].putFloat(value(record.getThal()));
+                    features[8].putFloat(value(record.getRestecg()));
+                    features[9].putFloat(value(record.getCp()));
+                    rows++;
+                }
+                if (documents.size() < pageSize) {
+                    break;
+                }
+                last = documents.get(documents.size() - 1);
+            }
+        } finally {
+            for (NpyColumnWriter writer : features) {
+                if (writer != null) {
+                    writer.close();
+                }
+            }
+        }
+        objectMapper.writeValue(dir.resolve("users.json").toFile(), new ArrayList<>(userCodes.keySet()));
+        return new ShardExport(shard, rows, userCodes.size(), dir.toString());
+    }
+
+    private static Map<String, String> columns() {
+        Map<String, String> columns = new LinkedHashMap<>();
+        for (String feature : FEATURES) {
+            columns.put(feature, "<f4");
+        }
+        columns.put("timestamp", "<i8");
+        columns.put("user", "<i4");
+        return columns;
+    }
+
+    private static float value(Number value) {
+        return value != null ? value.floatValue() : Float.NaN;
+    }
+}
\ No newline at end of file
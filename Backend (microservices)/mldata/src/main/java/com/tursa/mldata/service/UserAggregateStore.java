@@ -0,0 +1,193 @@
+package com.tursa.mldata.service;
+
+import com.google.api.core.ApiFuture;
+import com.google.cloud.Timestamp;
+import com.google.cloud.firestore.DocumentReference;
+import com.google.cloud.firestore.DocumentSnapshot;
+import com.google.cloud.firestore.FieldPath;
+import com.google.cloud.firestore.Firestore;
+import com.google.cloud.firestore.Query;
+import com.google.cloud.firestore.QueryDocumentSnapshot;
+import com.tursa.mldata.dto.AggregateSummary;
+import com.tursa.mldata.dto.UserAggregatesResponse;
+import com.tursa.mldata.entity.HealthRecord;
+import com.tursa.mldata.entity.MetricStats;
+import com.tursa.mldata.entity.UserAggregates;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+
+// Running per-user vital aggregates (user_aggregates/{userId}), updated with every write so reading them
+// is one document get however long the history. saveRecord commits an aggregate_pending/{recordId}
+// marker with its record and applies it straight after; bulk and streaming ingestion fold per-user
+// deltas in once at the end. Each merge is a transaction on the user's document, so merges for one user
+// serialize, which is why high-rate ingestion batches them instead of merging per record. Markers whose
+// inline apply failed (or never ran: crash, interrupt) are applied by a periodic repair sweep.
+@Component
+public class UserAggregateStore {
+
+    private static final String COLLECTION = "user_aggregates";
+    private static final String PENDING = "aggregate_pending";
+
+    private final Firestore firestore;
+
+    @Value("${health.aggregates.merge-page-size:500}")  // Concurrent merge transactions after a bulk write
+    private int mergePageSize;
+
+    @Value("${health.aggregates.repair-min-age-ms:30000}")  // Leave younger markers to the inline apply
+    private long repairMinAgeMs;
+
+    public UserAggregateStore(Firestore firestore) {
+        this.firestore = firestore;
+    }
+
+    public DocumentReference reference(String userId) {
+        return firestore.collection(COLLECTION).document(userId);
+    }
+
+    public static UserAggregates fromSnapshot(DocumentSnapshot snapshot, String userId) {
+        return snapshot.exists() ? snapshot.toObject(UserAggregates.class) : new UserAggregates(userId);
+    }
+
+    // Adds each delta to its user's stored aggregates, a page of transactions at a time. Failures are
+    // logged and skipped: the records themselves are already saved
+    public void mergeAll(Collection<UserAggregates> deltas) throws InterruptedException {
+        List<ApiFuture<Void>> pending = new ArrayList<>(mergePageSize);
+        for (UserAggregates delta : deltas) {
+            pending.add(merge(delta));
+            if (pending.size() == mergePageSize) {
+                await(pending);
+            }
+        }
+        await(pending);
+    }
+
+    public ApiFuture<Void> merge(UserAggregates delta) {
+        DocumentReference docRef = reference(delta.getUserId());
+        return firestore.runTransaction(transaction -> {
+            UserAggregates stored = fromSnapshot(transaction.get(docRef).get(), delta.getUserId());
+            stored.merge(delta);
+            stored.prune(UserAggregates.epochDay(Timestamp.now()));
+            transaction.set(docRef, stored);
+            return null;
+        });
+    }
+
+    public DocumentReference pendingMarker(String recordId) {
+        return firestore.collection(PENDING).document(recordId);
+    }
+
+    public static Map<String, Object> markerFor(DocumentReference record, String userId) {
+        Map<String, Object> marker = new HashMap<>();
+        marker.put("record", record);
+        marker.put("userId", userId);
+        return marker;
+    }
+
+    // Folds the marked record into its user's aggregates and deletes the marker in one transaction, so a
+    // marker is applied exactly once however often this runs. False if it was already applied
+    public ApiFuture<Boolean> applyPending(DocumentReference marker) {
+        return firestore.runTransaction(transaction -> {
+            DocumentSnapshot pending = transaction.get(marker).get();
+            if (!pending.exists()) {
+                return false;
+            }
+            DocumentReference recordRef = pending.get("record", DocumentReference.class);
+            String userId = pending.getString("userId");
+            DocumentSnapshot recordSnapshot = recordRef != null ? transaction.get(recordRef).get() : null;
+            if (recordSnapshot == null || !recordSnapshot.exists() || userId == null) {
+                transaction.delete(marker);  // Record gone: nothing to fold in
+                return false;
+            }
+            DocumentReference docRef = reference(userId);
+            UserAggregates stored = fromSnapshot(transaction.get(docRef).get(), userId);
+            HealthRecord record = recordSnapshot.toObject(HealthRecord.class);
+            stored.add(record, record.getTimestamp() != null ? record.getTimestamp() : recordSnapshot.getUpdateTime());
+            stored.prune(UserAggregates.epochDay(Timestamp.now()));
+            transaction.set(docRef, stored);
+            transaction.delete(marker);
+            return true;
+        });
+    }
+
+    // Repair sweep: applies markers left behind by saves whose inline apply did not complete
+    @Scheduled(fixedDelayString = "${health.aggregates.repair-interval-ms:60000}")
+    public void repairPending() {
+        try {
+            long cutoff = System.currentTimeMillis() - repairMinAgeMs;
+            List<ApiFuture<Boolean>> pending = new ArrayList<>(mergePageSize);
+            String lastId = null;
+            while (true) {
+                Query query = firestore.collection(PENDING).orderBy(FieldPath.documentId()).limit(mergePageSize);
+                if (lastId != null) {
+                    query = query.startAfter(lastId);
+                }
+                List<QueryDocumentSnapshot> markers = query.get().get().getDocuments();
+                for (QueryDocumentSnapshot marker : markers) {
+                    if (marker.getCreateTime() != null && marker.getCreateTime().toDate().getTime() > cutoff) {
+                        continue;
+                    }
+                    pending.add(applyPending(marker.getReference()));
+                }
+                for (ApiFuture<Boolean> future : pending) {
+                    try {
+                        future.get();
+                    } catch (ExecutionException e) {
+                        System.err.println("Aggregate repair failed, retrying next sweep: " + e.getCause());
+                    }
+                }
+                pending.clear();
+                if (markers.size() < mergePageSize) {
+                    break;
+                }
+                lastId = markers.get(markers.size() - 1).getId();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            System.err.println("Aggregate repair sweep failed: " + e.getMessage());
+        }
+    }
+
+    // One document read; windows are relative to the current UTC day. null if the user has no aggregates
+    public UserAggregatesResponse summary(String userId) throws ExecutionException, InterruptedException {
+        DocumentSnapshot snapshot = reference(userId).get().get();
+        if (!snapshot.exists()) {
+            return null;
+        }
+        UserAggregates aggregates = snapshot.toObject(UserAggregates.class);
+        long today = UserAggregates.epochDay(Timestamp.now());
+        return new UserAggregatesResponse(userId,
+                aggregates.getUpdated() != null ? aggregates.getUpdated().toString() : null,
+                summarize(aggregates.getTotal()),
+                summarize(aggregates.window(today, 7)),
+                summarize(aggregates.window(today, UserAggregates.WINDOW_DAYS)));
+    }
+
+    private static Map<String, AggregateSummary> summarize(Map<String, MetricStats> stats) {
+        Map<String, AggregateSummary> summaries = new LinkedHashMap<>();
+        for (String metric : UserAggregates.METRICS) {
+            summaries.put(metric, AggregateSummary.of(stats.get(metric)));
+        }
+        return summaries;
+    }
+
+    private static void await(List<ApiFuture<Void>> pending) throws InterruptedException {
+        for (ApiFuture<Void> future : pending) {
+            try {
+                future.get();
+            } catch (ExecutionException e) {
+                System.err.println("Failed to merge user aggregates: " + e.getCause());
+            }
+        }
+        pending.clear();
+    }
+}
\ No newline at end of file
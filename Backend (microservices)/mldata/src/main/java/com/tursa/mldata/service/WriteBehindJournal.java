@@ -0,0 +1,497 @@
+package com.tursa.mldata.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tursa.mldata.dto.BatchWriteResponse;
+import com.tursa.mldata.dto.RecordWriteResult;
+import com.tursa.mldata.dto.WriteBehindStats;
+import com.tursa.mldata.entity.HealthRecord;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+// Optional write-behind mode for POST /health/record: the record is appended to a memory-mapped journal
+// on local disk and acknowledged straight away, and a single drainer thread moves journal entries to
+// Firestore in batches through HealthRecordService.saveRecords, retrying with backoff.
+//
+// Layout: fixed-size segment files journal-<seq>.log. Header = drained offset (long) + magic (int);
+// then entries of [length int][crc32 int][enqueue millis long][id length short][id][record JSON].
+// The length is written last, so a reader never sees a half-written entry; the CRC catches entries
+// torn by an OS crash. Each entry carries the Firestore document id chosen at enqueue time, so a batch
+// replayed after a crash overwrites the same documents instead of duplicating them. On startup every
+// segment is scanned and whatever lies past its drained offset is drained again.
+@Component
+public class WriteBehindJournal {
+
+    private static final int HEADER_BYTES = 16;
+    private static final int MAGIC = 0x4D4C4A31;  // "MLJ1"
+    private static final int ENTRY_HEADER_BYTES = 16;
+
+    private final HealthRecordService healthRecordService;
+    private final ObjectMapper objectMapper;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition appended = lock.newCondition();
+    private final ArrayDeque<Segment> segments = new ArrayDeque<>();  // Oldest (draining) first, newest appends
+    private long nextSegmentId;
+
+    private final AtomicLong pending = new AtomicLong();
+    private final AtomicLong pendingBytes = new AtomicLong();
+    private final AtomicLong drained = new AtomicLong();
+    private final AtomicLong retries = new AtomicLong();
+    private final AtomicLong deadLettered = new AtomicLong();
+    private volatile long lastDrainMillis;
+    private volatile String lastError;
+
+    private volatile boolean running;
+    private Thread drainer;
+
+    @Value("${health.write-behind.enabled:false}")
+    private boolean enabled;
+
+    @Value("${health.write-behind.dir:write-behind}")
+    private String dir;
+
+    @Value("${health.write-behind.segment-bytes:67108864}")
+    private int segmentBytes;
+
+    @Value("${health.write-behind.force:true}")  // msync each append: survive OS crashes, not just process crashes
+    private boolean forceOnAppend;
+
+    @Value("${health.write-behind.batch-size:500}")
+    private int batchSize;
+
+    @Value("${health.write-behind.max-attempts:10}")  // Then the entry goes to dead-letter.ndjson
+    private int maxAttempts;
+
+    @Value("${health.write-behind.max-backoff-ms:30000}")
+    private long maxBackoffMs;
+
+    public WriteBehindJournal(HealthRecordService healthRecordService, ObjectMapper objectMapper) {
+        this.healthRecordService = healthRecordService;
+        this.objectMapper = objectMapper;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @PostConstruct
+    public void init() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        Path directory = Paths.get(dir);
+        Files.createDirectories(directory);
+        List<Path> files;
+        try (Stream<Path> list = Files.list(directory)) {
+            files = list.filter(p -> p.getFileName().toString().matches("journal-\\d+\\.log")).sorted().toList();
+        }
+        for (int i = 0; i < files.size(); i++) {
+            Segment segment = Segment.open(files.get(i), segmentBytes);
+            nextSegmentId = Math.max(nextSegmentId, segment.id + 1);
+            if (segment.drainPos == segment.writePos && i < files.size() - 1) {
+                segment.delete();  // Fully drained and no longer appended to
+                continue;
+            }
+            segments.add(segment);
+            pending.addAndGet(segment.countFrom(segment.drainPos));
+            pendingBytes.addAndGet(segment.writePos - segment.drainPos);
+        }
+        if (pending.get() > 0) {
+            System.out.println("Write-behind journal: replaying " + pending.get() + " records from " + directory);
+        }
+        if (segments.isEmpty()) {
+            segments.add(Segment.create(directory.resolve(segmentName(nextSegmentId++)), segmentBytes));
+        }
+
+        running = true;
+        drainer = new Thread(this::drainLoop, "write-behind-drainer");
+        drainer.setDaemon(true);
+        drainer.start();
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        if (drainer == null) {
+            return;
+        }
+        running = false;
+        lock.lock();
+        try {
+            appended.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        drainer.join(TimeUnit.SECONDS.toMillis(30));
+        for (Segment segment : segments) {
+            segment.close();
+        }
+    }
+
+    // Durable once this returns; the returned id is the Firestore document id the record will get
+    public String append(HealthRecord record) throws IOException {
+        String id = UUID.randomUUID().toString().replace("-", "").substring(0, 20);
+        byte[] idBytes = id.getBytes(StandardCharsets.UTF_8);
+        byte[] json = objectMapper.writeValueAsBytes(record);
+        int payloadLength = 2 + idBytes.length + json.length;
+        int entryLength = ENTRY_HEADER_BYTES + payloadLength;
+        if (entryLength > segmentBytes - HEADER_BYTES) {
+            throw new IllegalArgumentException("Record too large for the write-behind journal");
+        }
+        byte[] payload = new byte[payloadLength];
+        payload[0] = (byte) (idBytes.length >>> 8);
+        payload[1] = (byte) idBytes.length;
+        System.arraycopy(idBytes, 0, payload, 2, idBytes.length);
+        System.arraycopy(json, 0, payload, 2 + idBytes.length, json.length);
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+
+        lock.lock();
+        try {
+            Segment tail = segments.peekLast();
+            if (tail.writePos + entryLength > segmentBytes) {
+                tail = Segment.create(Paths.get(dir).resolve(segmentName(nextSegmentId++)), segmentBytes);
+                segments.addLast(tail);
+            }
+            tail.write((int) crc.getValue(), System.currentTimeMillis(), payload, forceOnAppend);
+            pending.incrementAndGet();
+            pendingBytes.addAndGet(entryLength);
+            appended.signal();
+        } finally {
+            lock.unlock();
+        }
+        return id;
+    }
+
+    public WriteBehindStats stats() {
+        long oldest = 0;
+        lock.lock();
+        try {
+            for (Segment segment : segments) {
+                if (segment.drainPos < segment.writePos) {
+                    oldest = segment.enqueueMillisAt(segment.drainPos);  // Oldest undrained entry
+                    break;
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+        long lag = oldest > 0 ? Math.max(0, System.currentTimeMillis() - oldest) : 0;
+        return new WriteBehindStats(enabled, pending.get(), pendingBytes.get(), lag, segments.size(), drained.get(),
+                retries.get(), deadLettered.get(), lastDrainMillis, lastError);
+    }
+
+    private void drainLoop() {
+        while (running || pending.get() > 0) {
+            try {
+                List<Entry> batch = nextBatch();
+                if (batch.isEmpty()) {
+                    if (!running) {
+                        return;
+                    }
+                    continue;
+                }
+                write(batch);
+                commit(batch);
+                lastDrainMillis = System.currentTimeMillis();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                // Unexpected (e.g. disk error): log, back off and try the same entries again
+                lastError = e.toString();
+                System.err.println("Write-behind drain failed: " + e.getMessage());
+                sleepQuietly(1000);
+            }
+        }
+    }
+
+    // Up to batchSize entries from the head segment; waits briefly when there is nothing to drain
+    private List<Entry> nextBatch() throws InterruptedException {
+        lock.lock();
+        try {
+            Segment head = segments.peekFirst();
+            while (head.drainPos == head.writePos && segments.size() > 1) {
+                segments.pollFirst();
+                head.delete();
+                head = segments.peekFirst();
+            }
+            if (head.drainPos == head.writePos) {
+                if (running) {
+                    appended.await(1, TimeUnit.SECONDS);
+                }
+                return List.of();
+            }
+            List<Entry> batch = new ArrayList<>(Math.min(batchSize, 1024));
+            int position = head.drainPos;
+            while (position < head.writePos && batch.size() < batchSize) {
+                Entry entry = head.read(position);
+                batch.add(entry);
+                position = entry.end;
+            }
+            return batch;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Writes the batch until every entry is saved or dead-lettered. BulkWriter commits entries in parallel,
+    // so when one fails, entries after it may already be saved with earlier server timestamps; the retry
+    // therefore resubmits the failed entry and everything after it, in enqueue order, so timestamps (history
+    // order, the latest projection) follow the order records were acknowledged in. Ids are pinned, so
+    // rewriting an entry that already succeeded overwrites the same document, and its aggregates are not
+    // counted twice.
+    private void write(List<Entry> batch) throws InterruptedException, IOException {
+        List<Entry> remaining = batch;
+        Map<Entry, Integer> attempts = new HashMap<>();
+        Set<String> aggregated = new HashSet<>();
+        long backoff = 200;
+        while (!remaining.isEmpty()) {
+            List<HealthRecord> records = new ArrayList<>(remaining.size());
+            List<String> ids = new ArrayList<>(remaining.size());
+            for (Entry entry : remaining) {
+                records.add(objectMapper.readValue(entry.json, HealthRecord.class));
+                ids.add(entry.id);
+            }
+            BatchWriteResponse response = healthRecordService.saveRecords(records, ids, aggregated);
+
+            int firstFailed = -1;
+            String error = null;
+            for (RecordWriteResult result : response.getResults()) {
+                if (!"failed".equals(result.getStatus())) {
+                    aggregated.add(remaining.get(result.getIndex()).id);
+                } else if (firstFailed < 0 || result.getIndex() < firstFailed) {
+                    firstFailed = result.getIndex();
+                    error = result.getError();
+                }
+            }
+            if (firstFailed < 0) {
+                return;
+            }
+            Entry entry = remaining.get(firstFailed);
+            lastError = error;
+            remaining = new ArrayList<>(remaining.subList(firstFailed, remaining.size()));
+            if (attempts.merge(entry, 1, Integer::sum) >= maxAttempts) {
+                deadLetter(entry, error);
+                remaining.remove(0);
+                continue;  // The rest go again straight away, now that nothing is ahead of them
+            }
+            retries.addAndGet(remaining.size());
+            sleepQuietly(backoff);
+            backoff = Math.min(maxBackoffMs, backoff * 2);
+        }
+    }
+
+    // Persists the head segment's new drained offset; replay after a crash restarts from here
+    private void commit(List<Entry> batch) {
+        Entry last = batch.get(batch.size() - 1);
+        lock.lock();
+        try {
+            Segment head = segments.peekFirst();
+            long bytes = last.end - head.drainPos;
+            head.markDrained(last.end);
+            pending.addAndGet(-batch.size());
+            pendingBytes.addAndGet(-bytes);
+            drained.addAndGet(batch.size());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void deadLetter(Entry entry, String error) throws IOException {
+        Map<String, Object> line = new HashMap<>();
+        line.put("id", entry.id);
+        line.put("error", error);
+        line.put("enqueuedAt", entry.enqueueMillis);
+        line.put("record", objectMapper.readTree(entry.json));
+        byte[] bytes = (objectMapper.writeValueAsString(line) + "\n").getBytes(StandardCharsets.UTF_8);
+        Files.write(Paths.get(dir).resolve("dead-letter.ndjson"), bytes, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        deadLettered.incrementAndGet();
+        System.err.println("Write-behind: dead-lettered record " + entry.id + ": " + error);
+    }
+
+    private static String segmentName(long id) {
+        return String.format("journal-%020d.log", id);
+    }
+
+    private static void sleepQuietly(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static final class Entry {
+        final String id;
+        final byte[] json;
+        final long enqueueMillis;
+        final int end;  // Offset just past this entry
+
+        Entry(String id, byte[] json, long enqueueMillis, int end) {
+            this.id = id;
+            this.json = json;
+            this.enqueueMillis = enqueueMillis;
+            this.end = end;
+        }
+    }
+
+    // One mapped journal file. writePos and drainPos are guarded by the journal lock
+    private static final class Segment {
+        final long id;
+        final Path path;
+        final FileChannel channel;
+        final MappedByteBuffer buffer;
+        int writePos;
+        int drainPos;
+
+        private Segment(long id, Path path, FileChannel channel, MappedByteBuffer buffer) {
+            this.id = id;
+            this.path = path;
+            this.channel = channel;
+            this.buffer = buffer;
+        }
+
+        static Segment create(Path path, int size) throws IOException {
+            Segment segment = map(path, size);
+            segment.buffer.putLong(0, HEADER_BYTES);
+            segment.buffer.putInt(8, MAGIC);
+            segment.buffer.force();
+            segment.writePos = HEADER_BYTES;
+            segment.drainPos = HEADER_BYTES;
+            return segment;
+        }
+
+        // Recovers positions: the drained offset from the header, the write position from the first entry
+        // that is missing or fails its CRC
+        static Segment open(Path path, int size) throws IOException {
+            Segment segment = map(path, Math.max(size, (int) Files.size(path)));
+            if (segment.buffer.getInt(8) != MAGIC) {
+                segment.close();
+                throw new IOException("Not a write-behind journal segment: " + path);
+            }
+            int position = HEADER_BYTES;
+            while (position + ENTRY_HEADER_BYTES <= segment.buffer.capacity()) {
+                int length = segment.buffer.getInt(position);
+                if (length <= 0 || position + ENTRY_HEADER_BYTES + length > segment.buffer.capacity()) {
+                    break;
+                }
+                byte[] payload = new byte[length];
+                segment.buffer.get(position + ENTRY_HEADER_BYTES, payload);
+                CRC32 crc = new CRC32();
+                crc.update(payload);
+                if ((int) crc.getValue() != segment.buffer.getInt(position + 4)) {
+                    break;  // Torn write: everything from here on was never acknowledged
+                }
+                position += ENTRY_HEADER_BYTES + length;
+            }
+            segment.writePos = position;
+            segment.drainPos = (int) Math.min(position, Math.max(HEADER_BYTES, segment.buffer.getLong(0)));
+            // Zero the first length slot past the recovered tail, so a torn entry cannot be resurrected
+            if (position + 4 <= segment.buffer.capacity()) {
+                segment.buffer.putInt(position, 0);
+            }
+            return segment;
+        }
+
+        private static Segment map(Path path, int size) throws IOException {
+            FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE);
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            String name = path.getFileName().toString();
+            long id = Long.parseLong(name.substring("journal-".length(), name.length() - ".log".length()));
+            return new Segment(id, path, channel, buffer);
+        }
+
+        void write(int crc, long enqueueMillis, byte[] payload, boolean force) {
+            int position = writePos;
+            buffer.putInt(position + 4, crc);
+            buffer.putLong(position + 8, enqueueMillis);
+            buffer.put(position + ENTRY_HEADER_BYTES, payload);
+            buffer.putInt(position, payload.length);  // Publish last
+            int end = position + ENTRY_HEADER_BYTES + payload.length;
+            if (end + 4 <= buffer.capacity()) {
+                buffer.putInt(end, 0);
+            }
+            if (force) {
+                buffer.force(position, Math.min(buffer.capacity(), end + 4) - position);
+            }
+            writePos = end;
+        }
+
+        Entry read(int position) {
+            int length = buffer.getInt(position);
+            long enqueueMillis = buffer.getLong(position + 8);
+            int payloadStart = position + ENTRY_HEADER_BYTES;
+            int idLength = ((buffer.get(payloadStart) & 0xFF) << 8) | (buffer.get(payloadStart + 1) & 0xFF);
+            byte[] idBytes = new byte[idLength];
+            buffer.get(payloadStart + 2, idBytes);
+            byte[] json = new byte[length - 2 - idLength];
+            buffer.get(payloadStart + 2 + idLength, json);
+            return new Entry(new String(idBytes, StandardCharsets.UTF_8), json, enqueueMillis,
+                    payloadStart + length);
+        }
+
+        long enqueueMillisAt(int position) {
+            return buffer.getLong(position + 8);
+        }
+
+        int countFrom(int position) {
+            int count = 0;
+            while (position < writePos) {
+                position += ENTRY_HEADER_BYTES + buffer.getInt(position);
+                count++;
+            }
+            return count;
+        }
+
+        void markDrained(int position) {
+            drainPos = position;
+            buffer.putLong(0, position);
+            buffer.force(0, 8);
+        }
+
+        void close() {
+            try {
+                buffer.force();
+                channel.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        void delete() {
+            close();
+            try {
+                Files.deleteIfExists(path);
+            } catch (IOException e) {
+                System.err.println("Could not delete drained journal segment " + path + ": " + e.getMessage());
+            }
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,129 @@
+package com.tursa.mldata.service;
+
+import com.google.cloud.NoCredentials;
+import com.google.cloud.Timestamp;
+import com.google.cloud.firestore.Firestore;
+import com.google.cloud.firestore.FirestoreOptions;
+import com.tursa.mldata.dto.BatchWriteResponse;
+import com.tursa.mldata.dto.HealthRecordPage;
+import com.tursa.mldata.entity.HealthRecord;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+// Sustained bulk write rate of the health_records layout with 1 and with 16 write shards, against the
+// Firestore emulator (skipped unless FIRESTORE_EMULATOR_HOST is set, e.g.
+// `gcloud emulators firestore start --host-port=localhost:8080`). The emulator does not enforce the
+// sequential-index write limit, so it shows what sharding costs on the write path, not the production
+// ceiling it removes; it also checks that the sharded changes feed returns every record exactly once.
+// Tune with -Dload.records=N (default 20000).
+class ShardedWriteLoadTest {
+
+	private static final int BATCH = 5000;
+	private static final int USERS = 200;
+
+	private static Firestore firestore;
+
+	@BeforeAll
+	static void connect() {
+		String emulatorHost = System.getenv("FIRESTORE_EMULATOR_HOST");
+		assumeTrue(emulatorHost != null && !emulatorHost.isBlank(), "FIRESTORE_EMULATOR_HOST not set");
+		firestore = FirestoreOptions.newBuilder()
+				.setProjectId("mldata-load-test")
+				.setEmulatorHost(emulatorHost)
+				.setCredentials(NoCredentials.getInstance())
+				.build()
+				.getService();
+	}
+
+	@AfterAll
+	static void close() throws Exception {
+		if (firestore != null) {
+			firestore.close();
+		}
+	}
+
+	@Test
+	void singleShardWriteRate() throws Exception {
+		run(1);  // One shard: every write lands on one (shard, timestamp) key range, like the raw timestamp index
+	}
+
+	@Test
+	void shardedWriteRate() throws Exception {
+		run(16);
+	}
+
+	private void run(int shardCount) throws Exception {
+		int total = Integer.getInteger("load.records", 20000);
+		HealthRecordService service = service(shardCount);
+		String runId = UUID.randomUUID().toString().substring(0, 8);
+		Random random = new Random(7);
+		Timestamp start = Timestamp.now();
+
+		long saved = 0;
+		long begin = System.nanoTime();
+		for (int from = 0; from < total; from += BATCH) {
+			List<HealthRecord> batch = new ArrayList<>(BATCH);
+			for (int i = from; i < Math.min(total, from + BATCH); i++) {
+				batch.add(record(runId + "-" + (i % USERS), random));
+			}
+			BatchWriteResponse response = service.saveRecords(batch);
+			saved += response.getSaved();
+		}
+		double seconds = (System.nanoTime() - begin) / 1e9;
+		System.out.printf("shards=%d: %d records in %.1f s = %.0f records/s%n", shardCount, saved, seconds,
+				saved / seconds);
+		assertEquals(total, saved);
+
+		// Read back through the (fanned-out) changes feed
+		long seen = 0;
+		String token = null;
+		do {
+			HealthRecordPage page = service.getRecordsSince(start, token, 1000);
+			for (HealthRecord record : page.getRecords()) {
+				if (record.getUserId().startsWith(runId)) {
+					seen++;
+				}
+			}
+			token = page.getNextPageToken();
+		} while (token != null);
+		assertEquals(total, seen);
+	}
+
+	private static HealthRecordService service(int shardCount) {
+		MedbotNotifier notifier = new MedbotNotifier();  // No medbot.url: notifications are skipped
+
+		LatestRecordStore latestRecordStore = new LatestRecordStore(firestore);
+		ReflectionTestUtils.setField(latestRecordStore, "cacheEnabled", false);
+		ReflectionTestUtils.setField(latestRecordStore, "backfillPageSize", 500);
+
+		TimestampShards shards = new TimestampShards();
+		ReflectionTestUtils.setField(shards, "count", shardCount);
+
+		UserAggregateStore userAggregateStore = new UserAggregateStore(firestore);
+		ReflectionTestUtils.setField(userAggregateStore, "mergePageSize", 500);
+
+		HealthRecordService service = new HealthRecordService(firestore, notifier, latestRecordStore, shards,
+				userAggregateStore);
+		ReflectionTestUtils.setField(service, "maxInFlight", 500);
+		ReflectionTestUtils.setField(service, "throttling", false);
+		return service;
+	}
+
+	private static HealthRecord record(String userId, Random random) {
+		return new HealthRecord(30 + random.nextDouble() * 50, 100 + random.nextDouble() * 90,
+				random.nextDouble() * 4, 100 + random.nextDouble() * 80, 18 + random.nextDouble() * 20,
+				150 + random.nextDouble() * 200, random.nextInt(4), 1 + random.nextInt(3), random.nextInt(3),
+				random.nextInt(4), userId);
+	}
+
+}
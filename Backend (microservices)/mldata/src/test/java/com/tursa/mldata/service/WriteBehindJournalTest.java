@@ -0,0 +1,217 @@
+package com.tursa.mldata.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tursa.mldata.dto.BatchWriteResponse;
+import com.tursa.mldata.dto.RecordWriteResult;
+import com.tursa.mldata.entity.HealthRecord;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.function.BooleanSupplier;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Recovery behaviour of the write-behind journal against a stubbed HealthRecordService: the stub holds
+// the drainer at a gate, so entries stay pending while a journal is stopped and reopened on the same
+// directory, then records the ids it is asked to save once the gate opens.
+class WriteBehindJournalTest {
+
+	private static final int HEADER_BYTES = 16;
+	private static final int ENTRY_HEADER_BYTES = 16;
+
+	@TempDir
+	Path dir;
+
+	@Test
+	void reopenReplaysPendingEntriesInOrder() throws Exception {
+		WriteBehindJournal first = open(new StubService(false), 1 << 20);
+		List<String> ids = appendAll(first, 5);
+		stop(first);
+
+		StubService service = new StubService(false);
+		WriteBehindJournal reopened = open(service, 1 << 20);
+		assertEquals(5, reopened.stats().getQueueDepth());
+
+		service.gate.countDown();
+		awaitDrained(reopened);
+		assertEquals(ids, service.saved);
+		stop(reopened);
+	}
+
+	@Test
+	void corruptedTailEntryIsDroppedOnOpen() throws Exception {
+		WriteBehindJournal first = open(new StubService(false), 1 << 20);
+		List<String> ids = appendAll(first, 3);
+		stop(first);
+
+		List<Path> files = segmentFiles();
+		assertEquals(1, files.size());
+		corruptLastEntry(files.get(0));
+
+		StubService service = new StubService(false);
+		WriteBehindJournal reopened = open(service, 1 << 20);
+		assertEquals(2, reopened.stats().getQueueDepth());
+
+		service.gate.countDown();
+		awaitDrained(reopened);
+		assertEquals(ids.subList(0, 2), service.saved);
+		stop(reopened);
+	}
+
+	@Test
+	void drainedOffsetIsRespectedAfterReopen() throws Exception {
+		StubService service = new StubService(true);
+		WriteBehindJournal first = open(service, 1 << 20);
+		List<String> drainedIds = appendAll(first, 2);
+		awaitDrained(first);
+		assertEquals(drainedIds, service.saved);
+
+		service.gate = new CountDownLatch(1);  // Hold everything appended from here on
+		List<String> pendingIds = appendAll(first, 2);
+		stop(first);
+
+		StubService replay = new StubService(false);
+		WriteBehindJournal reopened = open(replay, 1 << 20);
+		assertEquals(2, reopened.stats().getQueueDepth());
+
+		replay.gate.countDown();
+		awaitDrained(reopened);
+		assertEquals(pendingIds, replay.saved);
+		stop(reopened);
+	}
+
+	@Test
+	void rollsOverSegmentsAndDeletesThemOnceDrained() throws Exception {
+		StubService service = new StubService(false);
+		WriteBehindJournal journal = open(service, 1024);  // A few entries per segment
+		List<String> ids = appendAll(journal, 20);
+		assertTrue(journal.stats().getSegments() > 1, "expected rollover, got " + journal.stats().getSegments());
+		assertEquals(journal.stats().getSegments(), segmentFiles().size());
+
+		service.gate.countDown();
+		awaitDrained(journal);
+		await(() -> journal.stats().getSegments() == 1, "drained segments deleted");
+		assertEquals(1, segmentFiles().size());
+		assertEquals(ids, service.saved);
+		stop(journal);
+	}
+
+	@Test
+	void retriesFromTheFirstFailureInEnqueueOrder() throws Exception {
+		StubService service = new StubService(false);
+		WriteBehindJournal journal = open(service, 1 << 20);
+		List<String> ids = appendAll(journal, 3);
+		service.failOnce = ids.get(1);
+
+		service.gate.countDown();
+		awaitDrained(journal);
+		// The entry after the failure is rewritten after it, so the last write of each id follows enqueue order
+		assertEquals(List.of(ids.get(0), ids.get(2), ids.get(1), ids.get(2)), service.saved);
+		stop(journal);
+	}
+
+	private WriteBehindJournal open(HealthRecordService service, int segmentBytes) throws Exception {
+		WriteBehindJournal journal = new WriteBehindJournal(service, new ObjectMapper());
+		ReflectionTestUtils.setField(journal, "enabled", true);
+		ReflectionTestUtils.setField(journal, "dir", dir.toString());
+		ReflectionTestUtils.setField(journal, "segmentBytes", segmentBytes);
+		ReflectionTestUtils.setField(journal, "forceOnAppend", false);
+		ReflectionTestUtils.setField(journal, "batchSize", 3);
+		ReflectionTestUtils.setField(journal, "maxAttempts", 10);
+		ReflectionTestUtils.setField(journal, "maxBackoffMs", 50L);
+		journal.init();
+		return journal;
+	}
+
+	// Interrupts the drainer first, so shutdown does not wait for entries held at the stub's gate
+	private static void stop(WriteBehindJournal journal) throws InterruptedException {
+		Thread drainer = (Thread) ReflectionTestUtils.getField(journal, "drainer");
+		drainer.interrupt();
+		journal.shutdown();
+	}
+
+	private static List<String> appendAll(WriteBehindJournal journal, int count) throws Exception {
+		List<String> ids = new ArrayList<>();
+		for (int i = 0; i < count; i++) {
+			ids.add(journal.append(new HealthRecord(50.0 + i, 150.0, 1.0, 130.0, 25.0, 200.0, 0, 2, 1, 0, "user-" + i)));
+		}
+		return ids;
+	}
+
+	private List<Path> segmentFiles() throws Exception {
+		try (Stream<Path> list = Files.list(dir)) {
+			return list.filter(p -> p.getFileName().toString().matches("journal-\\d+\\.log")).sorted().toList();
+		}
+	}
+
+	// Flips a payload byte of the last entry, as an OS crash mid-write would leave it
+	private static void corruptLastEntry(Path segment) throws Exception {
+		try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+			ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size());
+			int position = HEADER_BYTES;
+			int last = -1;
+			while (position + ENTRY_HEADER_BYTES <= buffer.capacity() && buffer.getInt(position) > 0) {
+				last = position;
+				position += ENTRY_HEADER_BYTES + buffer.getInt(position);
+			}
+			int target = last + ENTRY_HEADER_BYTES + buffer.getInt(last) - 1;
+			buffer.put(target, (byte) (buffer.get(target) ^ 0x01));
+		}
+	}
+
+	private static void awaitDrained(WriteBehindJournal journal) throws InterruptedException {
+		await(() -> journal.stats().getQueueDepth() == 0, "journal drained");
+	}
+
+	private static void await(BooleanSupplier condition, String what) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + 10_000;
+		while (!condition.getAsBoolean()) {
+			assertTrue(System.currentTimeMillis() < deadline, "timed out waiting for " + what);
+			Thread.sleep(20);
+		}
+	}
+
+	// Saves nothing until the gate opens, then reports every record saved (except failOnce, the first time
+	// it is seen) and remembers the saved ids in order
+	private static final class StubService extends HealthRecordService {
+
+		volatile CountDownLatch gate;
+		volatile String failOnce;
+		final List<String> saved = Collections.synchronizedList(new ArrayList<>());
+
+		StubService(boolean open) {
+			super(null, null, null, null, null);
+			gate = new CountDownLatch(open ? 0 : 1);
+		}
+
+		@Override
+		public BatchWriteResponse saveRecords(List<HealthRecord> records, List<String> documentIds,
+				Set<String> alreadyAggregated) throws InterruptedException {
+			gate.await();
+			List<RecordWriteResult> results = new ArrayList<>(records.size());
+			for (int i = 0; i < records.size(); i++) {
+				if (documentIds.get(i).equals(failOnce)) {
+					failOnce = null;
+					results.add(RecordWriteResult.failed(i, "unavailable"));
+					continue;
+				}
+				saved.add(documentIds.get(i));
+				results.add(RecordWriteResult.saved(i, documentIds.get(i), "now"));
+			}
+			return new BatchWriteResponse(records.size(), 0, 0, 0, results);  // Counts are not read by the journal
+		}
+	}
+}